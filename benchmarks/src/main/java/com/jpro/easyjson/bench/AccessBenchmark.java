@@ -0,0 +1,69 @@
+package com.jpro.easyjson.bench;
+
+import com.jpro.easyjson.Json;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * get(String...), getAs(String...), the primitive getters, asMap() and Array::asList()!
+ * Element iteration: Array::iterator() against Array::forEach(JsonView, ...).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccessBenchmark {
+    private static final String[] AGE = {"profile", "age"};
+    private static final String[] STREET = {"profile", "address", "street"};
+    private static final String[] COUNT = {"count"};
+
+    @Benchmark
+    public Json get(Payloads p) { return p.json.get("profile", "address", "street"); }
+
+    @Benchmark
+    public Integer getAs(Payloads p) { return p.json.getAs("profile", "age"); }
+
+    @Benchmark
+    public int getInt(Payloads p) { return p.json.getInt(AGE); }
+
+    @Benchmark
+    public String getText(Payloads p) { return p.json.getText(STREET); }
+
+    @Benchmark
+    public long iterate(Payloads p) {
+        long total = 0;
+        for (Json item : p.items) total += item.getInt(COUNT);
+        return total;
+    }
+
+    @Benchmark
+    public long iterateView(Payloads p) {
+        long[] total = {0};
+        p.items.forEach(p.view, item -> total[0] += item.getInt(COUNT));
+        return total[0];
+    }
+
+    @Benchmark
+    public Map<String, Object> asMap(Payloads p) { return p.json.asMap(); }
+
+    @Benchmark
+    public List<Object> asList(Payloads p) { return p.json.get("items").toArray().asList(); }
+
+    @Benchmark
+    public int keysAndGet(Payloads p) {
+        int n = 0;
+        for (String key : p.json.keys()) n += p.json.get(key).getRoot().size();
+        return n;
+    }
+
+    @Benchmark
+    public int forEachField(Payloads p) {
+        int[] n = {0};
+        p.json.forEachField(p.view, (key, value) -> n[0] += value.getRoot().size());
+        return n[0];
+    }
+}
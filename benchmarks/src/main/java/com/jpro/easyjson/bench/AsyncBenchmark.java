@@ -0,0 +1,31 @@
+package com.jpro.easyjson.bench;
+
+import com.jpro.easyjson.Json;
+import com.jpro.easyjson.JsonAsyncParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JsonAsyncParser fed in 4 KB chunks, as off a socket, against Json.parse() of the whole body!
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AsyncBenchmark {
+    private static final int CHUNK = 4096;
+
+    @Benchmark
+    public Json parseWhole(Payloads p) { return Json.parse(p.bytes, 0, p.bytes.length); }
+
+    @Benchmark
+    public List<Json> feedChunks(Payloads p) {
+        try (JsonAsyncParser parser = new JsonAsyncParser()) {
+            for (int i = 0; i < p.bytes.length; i += CHUNK) parser.feed(p.bytes, i, Math.min(CHUNK, p.bytes.length - i));
+            return parser.end();
+        }
+    }
+}
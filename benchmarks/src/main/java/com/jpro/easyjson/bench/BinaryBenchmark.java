@@ -0,0 +1,42 @@
+package com.jpro.easyjson.bench;
+
+import com.jpro.easyjson.Json;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Json::toBinary() and Json.parseBinary(), against the UTF-8 text path!
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryBenchmark {
+    @Benchmark
+    public byte[] encodeText(Payloads p) { return p.json.dumpsBytes(); }
+
+    @Benchmark
+    public byte[] encodeBinary(Payloads p) { return p.json.toBinary(); }
+
+    @Benchmark
+    public byte[] encodeBinaryNoSharedKeys(Payloads p) { return p.json.toBinary(false); }
+
+    @Benchmark
+    public Json decodeText(Payloads p) { return Json.parse(p.bytes, 0, p.bytes.length); }
+
+    @Benchmark
+    public Json decodeBinary(Payloads p) { return Json.parseBinary(p.binary); }
+
+    /**
+     * Sizes of the payloads, text / binary / binary without shared keys!
+     *   java -cp target/benchmarks.jar com.jpro.easyjson.bench.BinaryBenchmark
+     */
+    public static void main(String[] args) {
+        for (String size : new String[] {"small", "medium", "large"}) {
+            Json json = Json.parse(Payloads.document(Payloads.items(size)));
+            System.out.println(size + " " + json.dumpsBytes().length + " / " + json.toBinary().length + " / " + json.toBinary(false).length + " B");
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.jpro.easyjson.bench;
+
+import com.jpro.easyjson.Json;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request decoding: Json.parse(String, Class) against Json.parse(String) + asMap()!
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BindBenchmark {
+    @Benchmark
+    public Document bind(Payloads p) { return Json.parse(p.text, Document.class); }
+
+    @Benchmark
+    public Document bindTree(Payloads p) { return p.json.as(Document.class); }
+
+    @Benchmark
+    public Map<String, Object> asMap(Payloads p) { return Json.parse(p.text).asMap(); }
+
+    @Benchmark
+    public Json of(Payloads p) { return Json.of(p.document); }
+
+    public static class Document {
+        public int id;
+        public String name;
+        public boolean active;
+        public double score;
+        public List<String> tags;
+        public Profile profile;
+        public List<Item> items;
+    }
+
+    public static class Profile {
+        public int age;
+        public String city;
+        public Address address;
+    }
+
+    public static class Address {
+        public String street;
+        public int zip;
+    }
+
+    public static class Item {
+        public int id;
+        public String sku;
+        public double price;
+        public int count;
+        public long stamp;
+        public boolean valid;
+        public List<String> labels;
+        public Meta meta;
+    }
+
+    public static class Meta {
+        public String origin;
+        public int rank;
+    }
+}
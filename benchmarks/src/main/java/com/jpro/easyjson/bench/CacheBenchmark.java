@@ -0,0 +1,30 @@
+package com.jpro.easyjson.bench;
+
+import com.jpro.easyjson.Json;
+import com.jpro.easyjson.ParseCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ParseCache::parse() on a repeated payload, against Json.parse()!
+ * The payload is a new String per call, as it would be off the wire.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheBenchmark {
+    private final ParseCache cache = ParseCache.builder().build();
+
+    @Benchmark
+    public Json parse(Payloads p) { return Json.parse(new String(p.text)); }
+
+    @Benchmark
+    public Json cached(Payloads p) { return cache.parse(new String(p.text)); }
+
+    @Benchmark
+    public Json cachedBytes(Payloads p) { return cache.parse(p.bytes, 0, p.bytes.length); }
+}
@@ -0,0 +1,34 @@
+package com.jpro.easyjson.bench;
+
+import com.jpro.easyjson.Json;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Json::check() against a template, Json::equal() against an identical document,
+ * and Json.diff() against a document with a few changes!
+ * The compiled JsonSchema of the same template, on the tree and on the bytes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CheckBenchmark {
+    @Benchmark
+    public boolean check(Payloads p) { return p.json.check(p.template, new StringBuilder()); }
+
+    @Benchmark
+    public boolean schema(Payloads p) { return p.schema.isValid(p.json); }
+
+    @Benchmark
+    public List<String> schemaStream(Payloads p) { return p.schema.validate(p.bytes); }
+
+    @Benchmark
+    public boolean equal(Payloads p) { return p.json.equal(p.same, new StringBuilder()); }
+
+    @Benchmark
+    public Json diff(Payloads p) { return Json.diff(p.json, p.changed); }
+}
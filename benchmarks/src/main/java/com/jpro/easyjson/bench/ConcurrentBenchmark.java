@@ -0,0 +1,25 @@
+package com.jpro.easyjson.bench;
+
+import com.jpro.easyjson.Json;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Json.parse(String) on the shared config, one thread against all cores!
+ * Lock-free parsing keeps the per-thread throughput of both runs close.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentBenchmark {
+    @Benchmark
+    @Threads(1)
+    public Json parseOneThread(Payloads p) { return Json.parse(p.text); }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Json parseAllThreads(Payloads p) { return Json.parse(p.text); }
+}
@@ -0,0 +1,60 @@
+package com.jpro.easyjson.bench;
+
+import com.jpro.easyjson.Json;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Json::dumps() and Json::dumpsBytes(), against the Jackson tree toString()!
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DumpBenchmark {
+    @Benchmark
+    public String treeToString(Payloads p) { return p.json.getRoot().toString(); }
+
+    @Benchmark
+    public String dumps(Payloads p) { return p.json.dumps(); }
+
+    @Benchmark
+    public String dumpsPretty(Payloads p) { return p.json.dumpsPretty(); }
+
+    @Benchmark
+    public String dumpsCanonical(Payloads p) { return p.json.dumpsCanonical(); }
+
+    @Benchmark
+    public byte[] dumpsBytes(Payloads p) { return p.json.dumpsBytes(); }
+
+    @Benchmark
+    public StringBuilder writeToBuilder(Payloads p, Out out) {
+        out.chars.setLength(0);
+        p.json.writeTo(out.chars);
+        return out.chars;
+    }
+
+    @Benchmark
+    public void writeToStream(Payloads p, Out out) { p.json.writeTo(out.stream); }
+
+    @State(Scope.Thread)
+    public static class Out {
+        final StringBuilder chars = new StringBuilder(1 << 16);
+        OutputStream stream;
+
+        @Setup
+        public void setup(Blackhole blackhole) {
+            stream = new OutputStream() {
+                @Override
+                public void write(int b) { blackhole.consume(b); }
+
+                @Override
+                public void write(byte[] b, int off, int len) { blackhole.consume(b); }
+            };
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.jpro.easyjson.bench;
+
+import com.jpro.easyjson.Json;
+import com.jpro.easyjson.MappedJson;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON files: Json.parse(Path) and Json.parseLazy(Path) against reading the file into a String!
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileBenchmark {
+    private Path path;
+
+    @Setup
+    public void setup(Payloads p) throws IOException {
+        path = Files.createTempFile("easyjson-bench", ".json");
+        Files.write(path, p.bytes);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException { Files.delete(path); }
+
+    @Benchmark
+    public Json readString() throws IOException {
+        return Json.parse(new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public Json parsePath() { return Json.parse(path); }
+
+    @Benchmark
+    public Object lazyGet() {
+        MappedJson json = Json.parseLazy(path);
+        return json.get("profile", "address", "street").value();
+    }
+}
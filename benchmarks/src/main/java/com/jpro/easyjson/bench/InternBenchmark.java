@@ -0,0 +1,46 @@
+package com.jpro.easyjson.bench;
+
+import com.jpro.easyjson.EasyJsonConfig;
+import com.jpro.easyjson.Json;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Json::put() with and without the KeyCache, Json.parse() to show it is untouched!
+ * Built keys come from a StringBuilder, as in messages assembled at runtime.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InternBenchmark {
+    @Param({"false", "true"})
+    public boolean intern;
+
+    @Setup
+    public void setup() {
+        EasyJsonConfig.Builder builder = EasyJsonConfig.builder();
+        if (intern) builder.internKeys(1024);
+        Json.configure(builder.build());
+    }
+
+    @TearDown
+    public void tearDown() { Json.configure(EasyJsonConfig.defaults()); }
+
+    @Benchmark
+    public Json parse(Payloads p) { return Json.parse(p.bytes, 0, p.bytes.length); }
+
+    @Benchmark
+    public Json build() {
+        Json _r = new Json();
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            key.setLength(0);
+            _r.put(key.append("field").append(i).toString(), i);
+        }
+        return _r;
+    }
+}
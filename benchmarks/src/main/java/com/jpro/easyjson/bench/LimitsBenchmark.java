@@ -0,0 +1,41 @@
+package com.jpro.easyjson.bench;
+
+import com.jpro.easyjson.EasyJsonConfig;
+import com.jpro.easyjson.Json;
+import com.jpro.easyjson.ParseLimits;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of ParseLimits on parse: none (the plain path) against the standard limits!
+ * asMap() is the iterative walker, same for both.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LimitsBenchmark {
+    @Param({"none", "standard"})
+    public String limits;
+
+    @Setup
+    public void setup() {
+        Json.configure(EasyJsonConfig.builder().limits(limits.equals("none") ? ParseLimits.none() : ParseLimits.standard()).build());
+    }
+
+    @TearDown
+    public void tearDown() { Json.configure(EasyJsonConfig.defaults()); }
+
+    @Benchmark
+    public Json parse(Payloads p) { return Json.parse(p.bytes, 0, p.bytes.length); }
+
+    @Benchmark
+    public Json parseString(Payloads p) { return Json.parse(p.text); }
+
+    @Benchmark
+    public Map<String, Object> asMap(Payloads p) { return p.json.asMap(); }
+}
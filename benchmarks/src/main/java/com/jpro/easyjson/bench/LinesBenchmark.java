@@ -0,0 +1,59 @@
+package com.jpro.easyjson.bench;
+
+import com.jpro.easyjson.Json;
+import com.jpro.easyjson.JsonLines;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NDJSON with one record per "items" element: JsonLines against readLine() + Json.parse(String)!
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LinesBenchmark {
+    private byte[] lines;
+
+    @Setup
+    public void setup(Payloads p) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonLines.Writer writer = new JsonLines.Writer(out)) {
+            writer.writeAll(p.items);
+        }
+        lines = out.toByteArray();
+    }
+
+    @Benchmark
+    public int jsonLines() {
+        int n = 0;
+        try (JsonLines records = JsonLines.open(new ByteArrayInputStream(lines))) {
+            for (Json record : records) n += record.getInt("count");
+        }
+        return n;
+    }
+
+    @Benchmark
+    public int readLines() throws IOException {
+        int n = 0;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(lines), StandardCharsets.UTF_8));
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            if (!line.isEmpty()) n += Json.parse(line).getInt("count");
+        }
+        return n;
+    }
+
+    @Benchmark
+    public byte[] write(Payloads p) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(lines.length);
+        try (JsonLines.Writer writer = new JsonLines.Writer(out)) {
+            writer.writeAll(p.items);
+        }
+        return out.toByteArray();
+    }
+}
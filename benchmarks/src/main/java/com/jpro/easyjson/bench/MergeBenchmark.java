@@ -0,0 +1,76 @@
+package com.jpro.easyjson.bench;
+
+import com.jpro.easyjson.Json;
+import com.jpro.easyjson.MergePolicy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Json::merge() and Json::update(), against the PersistentJson versions!
+ * update() mutates the receiver, so it works on a fresh copy every invocation.
+ * copyAndPut is the defensive copy a shared mutable Json needs before a change.
+ * The wide* runs deep merge 256 top level subtrees, sequential against the pool.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MergeBenchmark {
+    @Benchmark
+    public Json merge(Payloads p) { return p.json.merge(p.other); }
+
+    @Benchmark
+    public Json update(Payloads p) { return p.json.merge(p.json).update(p.other); }
+
+    @Benchmark
+    public Json copyAndPut(Payloads p) { return new Json(p.json.getRoot().deepCopy()).put("name", "tenant"); }
+
+    @Benchmark
+    public Json persistentPut(Payloads p) { return p.snapshot.put(PATH, 8080); }
+
+    @Benchmark
+    public Json persistentMerge(Payloads p) { return p.snapshot.merge(p.overrides); }
+
+    @Benchmark
+    public Json persistentDeepMerge(Payloads p) { return p.snapshot.deepMerge(p.overrides); }
+
+    @Benchmark
+    public Json deepMerge(Payloads p) { return p.json.deepMerge(p.other); }
+
+    @Benchmark
+    public Json deepMergeByKey(Payloads p) { return p.json.deepMerge(p.same, BY_KEY); }
+
+    @Benchmark
+    public Json wideSequential(Wide w) { return w.a.deepMerge(w.b, CONCAT); }
+
+    @Benchmark
+    public Json wideParallel(Wide w) { return w.a.deepMerge(w.b, PARALLEL); }
+
+    @State(Scope.Benchmark)
+    public static class Wide {
+        Json a;
+        Json b;
+
+        @Setup
+        public void setup() {
+            a = new Json();
+            b = new Json();
+            for (int i = 0; i < 256; i++) {
+                a.put("tenant" + i, Json.parse(Payloads.document(20)));
+                b.put("tenant" + i, Json.parse(Payloads.document(20)).put("name", "override" + i));
+            }
+        }
+    }
+
+    private static final MergePolicy BY_KEY = MergePolicy.builder().mergeByKey("items", "id").build();
+
+    private static final MergePolicy CONCAT = MergePolicy.builder().arrays(MergePolicy.Strategy.CONCAT).build();
+
+    private static final MergePolicy PARALLEL = MergePolicy.builder()
+            .arrays(MergePolicy.Strategy.CONCAT).parallel(ForkJoinPool.commonPool(), 64).build();
+
+    private static final String[] PATH = {"profile", "address", "zip"};
+}
@@ -0,0 +1,38 @@
+package com.jpro.easyjson.bench;
+
+import com.jpro.easyjson.EasyJsonConfig;
+import com.jpro.easyjson.Json;
+import com.jpro.easyjson.MetricsRecorder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of EasyJsonMetrics on parse and dumps: none, timing only, timing with the tree shape!
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+    @Param({"off", "timing", "shape"})
+    public String metrics;
+
+    @Setup
+    public void setup() {
+        EasyJsonConfig.Builder builder = EasyJsonConfig.builder();
+        if (!metrics.equals("off")) builder.metrics(new MetricsRecorder(metrics.equals("shape")));
+        Json.configure(builder.build());
+    }
+
+    @TearDown
+    public void tearDown() { Json.configure(EasyJsonConfig.defaults()); }
+
+    @Benchmark
+    public Json parse(Payloads p) { return Json.parse(p.bytes, 0, p.bytes.length); }
+
+    @Benchmark
+    public String dumps(Payloads p) { return p.json.dumps(); }
+}
@@ -0,0 +1,56 @@
+package com.jpro.easyjson.bench;
+
+import com.jpro.easyjson.EasyJsonConfig;
+import com.jpro.easyjson.Json;
+import com.jpro.easyjson.NumericArray;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A telemetry array of 100k doubles, node per element against NumericArray!
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NumericBenchmark {
+    @Param({"false", "true"})
+    public boolean compact;
+
+    private double[] samples;
+    private String text;
+    private Json parsed;
+
+    @Setup
+    public void setup() {
+        Json.configure(EasyJsonConfig.builder().compactNumericArrays(compact).build());
+        Random random = new Random(7);
+        samples = new double[100_000];
+        for (int i = 0; i < samples.length; i++) samples[i] = random.nextDouble() * 1000;
+        text = "{\"samples\":" + Json.array(samples).dumps() + "}";
+        parsed = Json.parse(text);
+    }
+
+    @TearDown
+    public void tearDown() { Json.configure(EasyJsonConfig.defaults()); }
+
+    @Benchmark
+    public Json parse() { return Json.parse(text); }
+
+    @Benchmark
+    public String dumps() { return parsed.dumps(); }
+
+    @Benchmark
+    public double[] toDoubleArray() { return parsed.get("samples").toNumericArray().toDoubleArray(); }
+
+    @Benchmark
+    public List<Object> asList() { return parsed.get("samples").toArray().asList(); }
+
+    @Benchmark
+    public NumericArray build() { return Json.array(samples); }
+}
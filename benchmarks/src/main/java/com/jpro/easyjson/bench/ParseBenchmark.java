@@ -0,0 +1,25 @@
+package com.jpro.easyjson.bench;
+
+import com.jpro.easyjson.Json;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Json.parse(String), Json.parse(byte[], int, int) and Json.parse(Map)!
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+    @Benchmark
+    public Json parseString(Payloads p) { return Json.parse(p.text); }
+
+    @Benchmark
+    public Json parseBytes(Payloads p) { return Json.parse(p.bytes, 0, p.bytes.length); }
+
+    @Benchmark
+    public Json parseMap(Payloads p) { return Json.parse(p.map); }
+}
@@ -0,0 +1,31 @@
+package com.jpro.easyjson.bench;
+
+import com.jpro.easyjson.Json;
+import com.jpro.easyjson.JsonPath;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A few known values out of a document: JsonPath::extract() against Json.parse(String) + get()!
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathBenchmark {
+    private static final JsonPath PATHS = JsonPath.compile("id", "profile.address.street", "items[0].sku");
+
+    @Benchmark
+    public List<Json> extract(Payloads p) { return PATHS.extract(p.bytes); }
+
+    @Benchmark
+    public Object tree(Payloads p) {
+        Json json = Json.parse(p.text);
+        json.get("id");
+        json.get("items").toArray().get(0).get("sku");
+        return json.get("profile", "address", "street");
+    }
+}
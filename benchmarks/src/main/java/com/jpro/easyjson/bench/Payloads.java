@@ -0,0 +1,91 @@
+package com.jpro.easyjson.bench;
+
+import com.jpro.easyjson.Array;
+import com.jpro.easyjson.Json;
+import com.jpro.easyjson.JsonSchema;
+import com.jpro.easyjson.JsonView;
+import com.jpro.easyjson.PersistentJson;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Shared benchmark documents!
+ * Every payload has the same shape, only the length of "items" differs:
+ * small is a few hundred bytes, medium is ~20 KB and large is ~4 MB.
+ */
+@State(Scope.Benchmark)
+public class Payloads {
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    public String text;
+    public byte[] bytes;
+    public byte[] binary;
+    public Map<String, Object> map;
+    public Json json;
+    public Array items;
+    public JsonView view;
+    public Json same;
+    public Json changed;
+    public Json other;
+    public Json template;
+    public JsonSchema schema;
+    public BindBenchmark.Document document;
+    public PersistentJson snapshot;
+    public PersistentJson overrides;
+
+    @Setup
+    public void setup() {
+        text = document(items(size));
+        bytes = text.getBytes(StandardCharsets.UTF_8);
+        map = Json.asMap(text);
+        json = Json.parse(text);
+        binary = json.toBinary();
+        items = json.get("items").toArray();
+        view = new JsonView();
+        same = Json.parse(text);
+        changed = Json.parse(text).put("name", "changed").put("extra", 1);
+        document = Json.parse(text, BindBenchmark.Document.class);
+        other = Json.parse("{\"name\":\"other\",\"extra\":{\"x\":1},\"tags\":[\"z\"]}");
+        template = Json.parse(
+                "{\"id\":0,\"name\":\"\",\"active\":true,\"score\":0.0,\"tags\":[],"
+                + "\"profile\":{\"age\":0,\"city\":\"\",\"address\":{\"street\":\"\",\"zip\":0}},\"items\":[]}");
+        schema = JsonSchema.compile(template);
+        snapshot = json.snapshot();
+        overrides = other.snapshot();
+    }
+
+    public static int items(String size) {
+        switch (size) {
+            case "small":  return 1;
+            case "medium": return 100;
+            case "large":  return 20000;
+            default: throw new IllegalArgumentException("Unknown payload size : " + size);
+        }
+    }
+
+    public static String document(int items) {
+        StringBuilder sb = new StringBuilder(items * 220 + 256);
+        sb.append("{\"id\":7,\"name\":\"easyjson\",\"active\":true,\"score\":98.5,")
+          .append("\"tags\":[\"a\",\"b\",\"c\"],")
+          .append("\"profile\":{\"age\":31,\"city\":\"Hangzhou\",\"address\":{\"street\":\"West Lake Road\",\"zip\":310000}},")
+          .append("\"items\":[");
+        for (int i = 0; i < items; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"id\":").append(i)
+              .append(",\"sku\":\"SKU-").append(i * 7919 % 100000).append('"')
+              .append(",\"price\":").append(i % 1000).append('.').append(i % 100)
+              .append(",\"count\":").append(i % 17)
+              .append(",\"stamp\":").append(1600000000000L + i)
+              .append(",\"valid\":").append(i % 3 != 0)
+              .append(",\"labels\":[\"x").append(i % 5).append("\",\"y").append(i % 11).append("\"]")
+              .append(",\"meta\":{\"origin\":\"bench\",\"rank\":").append(i % 97).append("}}");
+        }
+        return sb.append("]}").toString();
+    }
+}
@@ -0,0 +1,39 @@
+package com.jpro.easyjson.bench;
+
+import com.jpro.easyjson.Json;
+import com.jpro.easyjson.JsonCursor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Two fields out of a document: Json.stream() cursor against Json.parse(String)!
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StreamBenchmark {
+    @Benchmark
+    public Object cursor(Payloads p) {
+        try (JsonCursor cursor = Json.stream(p.bytes)) {
+            cursor.enter();
+            Object id = null;
+            while (cursor.nextField()) {
+                if ("id".equals(cursor.field())) id = cursor.value();
+                else if ("profile".equals(cursor.field()) && cursor.find("address", "street")) break;
+            }
+            /* The rest of the document is never read. */
+            return cursor.token() == null ? id : cursor.value();
+        }
+    }
+
+    @Benchmark
+    public Object tree(Payloads p) {
+        Json json = Json.parse(p.text);
+        Object id = json.getAs("id");
+        Object street = json.getAs("profile", "address", "street");
+        return street == null ? id : street;
+    }
+}
@@ -2,9 +2,9 @@ package com.jpro.easyjson;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * JsonArray type, prepared for Json!
@@ -16,17 +16,29 @@ public class Array extends Json implements Iterable<Json> {
      * Construct an empty JsonArray!
      */
     public Array () {
-        root = JsonNodeFactory.instance.arrayNode();
+        root = config().nodeFactory().arrayNode();
     }
 
     /**
      * Construct an initialized JsonArray by the specific collection!
      */
-    public <E> Array(Collection<E> collection) { this(); collection.forEach(this::add); }
+    public <E> Array(Collection<E> collection) { this(JsonConverter.array(collection, config().nodeFactory())); }
 
-    public Json get(int index) {
-        JsonNode node = root.get(index);
-        return new Json() {{root = node;}};
+    /**
+     * Jackson support!
+     */
+    public Array(JsonNode node) { super(node); }
+
+    public Json get(int index) { return new Json(root.get(index)); }
+
+    /**
+     * Visit every element through the same view, no Json per element!
+     * The view is only valid inside the action, copy by new Json(view.getRoot()) to keep it.
+     */
+    public void forEach(JsonView view, Consumer<? super JsonView> action) {
+        for (int k = 0; k < root.size(); k++) {
+            action.accept(view.point(root.get(k)));
+        }
     }
 
     /**
@@ -44,44 +56,18 @@ public class Array extends Json implements Iterable<Json> {
         } else if (v instanceof Boolean) {
             ((ArrayNode) root).add((Boolean) v);
         } else {
-            throw new RuntimeException("Unknown type");
+            ((ArrayNode) root).add(JsonConverter.node(v, config().nodeFactory()));
         }
         return this;
     }
 
-    public List<Object> asList() {
-        if (root.isEmpty()) return new ArrayList<>();
-        List<Object> inner = new ArrayList<>(root.size());
-        for (int k = 0; k < root.size(); k++) {
-            if (root.get(k).isObject()) {
-                inner.add(new Json(root.get(k)).asMap());
-            } else if (root.get(k).isArray()) {
-                inner.add(new Json(root.get(k)).toArray().asList());
-            } else if (root.get(k).isTextual()) {
-                inner.add(root.get(k).asText());
-            } else if (root.get(k).isBoolean()) {
-                inner.add(root.get(k).asBoolean());
-            } else if (root.get(k).isLong()) {
-                inner.add(root.get(k).asLong());
-            } else if (root.get(k).isInt()) {
-                inner.add(root.get(k).asInt());
-            } else if (root.get(k).isDouble()) {
-                inner.add(root.get(k).asDouble());
-            } else if (root.get(k).isFloat()) {
-                inner.add(root.get(k).asDouble());
-            } else if (root.get(k).isNull()) {
-                inner.add(root.get(k).asDouble());
-            } else {
-                throw new RuntimeException("Unknown key(" + k + ") type : " + root.get(k).getNodeType().toString());
-            }
-        }
-        return inner;
-    }
+    @SuppressWarnings("unchecked")
+    public List<Object> asList() { return (List<Object>) plain(root, new ArrayList<>(root.size())); }
 
     /**
      * To JSON string of JsonArray!
      */
-    public String dumps() { return root.toString(); }
+    public String dumps() { return JsonWriter.COMPACT.toString(this); }
 
     /**
      * Same as Array::dumps() method!
@@ -105,9 +91,7 @@ public class Array extends Json implements Iterable<Json> {
         @Override
         public Json next() {
             if (cursor >= root.size()) throw new NoSuchElementException();
-            JsonNode pr = root.get(cursor);
-            cursor++;
-            return new Json() {{root = pr;}};
+            return new Json(root.get(cursor++));
         }
     }
 }
@@ -0,0 +1,175 @@
+package com.jpro.easyjson;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The parsing engine of EasyJson, install it by Json::configure()!
+ *
+ * Concurrency guarantees:
+ * An EasyJsonConfig is immutable once built. Its ObjectReader and ObjectWriter are
+ * immutable Jackson instances, so any number of threads parse and dump through
+ * the same config without locks. The per class codecs are cached in a concurrent map,
+ * built once and then read lock-free. Parser buffers are recycled per thread by Jackson
+ * (JsonFactory.Feature.USE_THREAD_LOCAL_FOR_BUFFER_RECYCLING, a Jackson default).
+ * Json::configure() swaps the whole config at once, a running parse keeps the old one.
+ * A Json document itself is not synchronized: share it read-only, or guard your put()/update().
+ */
+public class EasyJsonConfig {
+    private final JsonNodeFactory nodeFactory;
+    private final ObjectMapper mapper;
+    private final ObjectReader reader;
+    private final ObjectReader mapReader;
+    private final ObjectWriter writer;
+    private final KeyCache keys;
+    private final EasyJsonMetrics metrics;
+    private final ParseLimits limits;
+    private final boolean compactNumericArrays;
+
+    /**
+     * Per class codecs for Json::as() and Json.parse(.., Class), built once at the first use.
+     * Not bounded: one entry per class ever bound, kept (class and loader included) as long as
+     * the config. Fine for the fixed set of domain classes; binding generated classes without end,
+     * replace the config from time to time.
+     */
+    private final ConcurrentMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    private EasyJsonConfig(Builder builder) {
+        ObjectMapper mapper = new ObjectMapper(new JsonFactory());
+        builder.parser.forEach(mapper::configure);
+        builder.generator.forEach(mapper::configure);
+        builder.deserialization.forEach(mapper::configure);
+        builder.serialization.forEach(mapper::configure);
+        mapper.setNodeFactory(builder.nodeFactory);
+        if (builder.compactNumericArrays)
+            mapper.registerModule(new SimpleModule().addDeserializer(JsonNode.class, new NumericArrayNode.Deserializer()));
+        keys = builder.keys > 0 ? new KeyCache(builder.keys) : null;
+        metrics = builder.metrics;
+        limits = builder.limits;
+        compactNumericArrays = builder.compactNumericArrays;
+        nodeFactory = builder.nodeFactory;
+        this.mapper = mapper;
+        reader = mapper.reader();
+        mapReader = mapper.readerFor(Map.class);
+        /* The caller owns the streams passing to Json::writeTo(). */
+        writer = mapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * Jackson defaults, same behavior as before the config existed!
+     */
+    public static EasyJsonConfig defaults() { return builder().build(); }
+
+    public static Builder builder() { return new Builder(); }
+
+    public JsonNodeFactory nodeFactory() { return nodeFactory; }
+
+    /**
+     * The field name symbol table with its hit/miss counts, null unless Builder::internKeys()!
+     */
+    public KeyCache keys() { return keys; }
+
+    /**
+     * The listener of parse/asMap/dump/check, null unless Builder::metrics()!
+     */
+    public EasyJsonMetrics metrics() { return metrics; }
+
+    /**
+     * Limits of parsed input, ParseLimits.none() unless Builder::limits()!
+     */
+    public ParseLimits limits() { return limits; }
+
+    /**
+     * Inner using! The canonical field name.
+     */
+    String key(String k) { return keys == null ? k : keys.intern(k); }
+
+    ObjectReader reader() { return reader; }
+
+    boolean compactNumericArrays() { return compactNumericArrays; }
+
+    ObjectReader mapReader() { return mapReader; }
+
+    ObjectWriter writer() { return writer; }
+
+    ObjectReader reader(Class<?> type) { return readers.computeIfAbsent(type, mapper::readerFor); }
+
+    ObjectMapper mapper() { return mapper; }
+
+    public static class Builder {
+        private final Map<JsonParser.Feature, Boolean> parser = new LinkedHashMap<>();
+        private final Map<JsonGenerator.Feature, Boolean> generator = new LinkedHashMap<>();
+        private final Map<DeserializationFeature, Boolean> deserialization = new LinkedHashMap<>();
+        private final Map<SerializationFeature, Boolean> serialization = new LinkedHashMap<>();
+        private JsonNodeFactory nodeFactory = JsonNodeFactory.instance;
+        private boolean compactNumericArrays;
+        private int keys;
+        private EasyJsonMetrics metrics;
+        private ParseLimits limits = ParseLimits.none();
+
+        private Builder() {}
+
+        public Builder configure(JsonParser.Feature feature, boolean state) { parser.put(feature, state); return this; }
+
+        public Builder configure(JsonGenerator.Feature feature, boolean state) { generator.put(feature, state); return this; }
+
+        public Builder configure(DeserializationFeature feature, boolean state) { deserialization.put(feature, state); return this; }
+
+        public Builder configure(SerializationFeature feature, boolean state) { serialization.put(feature, state); return this; }
+
+        /**
+         * Node factory of parsed trees and of new Json()/Json.array(),
+         * e.g. JsonNodeFactory.withExactBigDecimals(true)!
+         */
+        public Builder nodeFactory(JsonNodeFactory nodeFactory) {
+            if (nodeFactory == null) throw new RuntimeException("Null node factory!");
+            this.nodeFactory = nodeFactory;
+            return this;
+        }
+
+        /**
+         * Parse arrays of only ints, only longs or only doubles into primitive buffers,
+         * see NumericArray! The dumped text is the same, the trees hold no node per element.
+         */
+        public Builder compactNumericArrays(boolean state) { compactNumericArrays = state; return this; }
+
+        /**
+         * Share one String per field name across documents, up to capacity names, see KeyCache!
+         */
+        public Builder internKeys(int capacity) {
+            if (capacity < 1) throw new RuntimeException("Key cache capacity error! " + capacity);
+            keys = capacity;
+            return this;
+        }
+
+        /**
+         * Report every parse, asMap, dump and check to the listener, see EasyJsonMetrics! Null turns it off.
+         */
+        public Builder metrics(EasyJsonMetrics metrics) { this.metrics = metrics; return this; }
+
+        /**
+         * Depth, size, string, field and number limits checked while parsing, see ParseLimits!
+         */
+        public Builder limits(ParseLimits limits) {
+            if (limits == null) throw new RuntimeException("Null parse limits!");
+            this.limits = limits;
+            return this;
+        }
+
+        public EasyJsonConfig build() { return new EasyJsonConfig(this); }
+    }
+}
@@ -0,0 +1,46 @@
+package com.jpro.easyjson;
+
+/**
+ * Listener of the hot paths, install it by EasyJsonConfig.Builder::metrics()!
+ * Without one, an operation pays a single null check.
+ *
+ * Every Json.parse(), Json::asMap(), dumps/dumpsBytes/writeTo and Json::check() reports
+ * its time, the chars or bytes of the text (-1 when not known, e.g. a stream)
+ * and, if shape() says so, the depth and node count of the tree (-1 otherwise).
+ * Json.parse(Path), JsonLines records and JsonLines.Writer report too.
+ * A failing operation (bad or over-limit input) reports by failed(), with the time spent.
+ * record() is called on the thread of the operation, keep it short and thread-safe.
+ *
+ * Usage:
+ *   MetricsRecorder metrics = EasyJsonMetrics.recorder();
+ *   Json.configure(EasyJsonConfig.builder().metrics(metrics).build());
+ *   ...
+ *   System.out.println(metrics.dumps());
+ */
+public interface EasyJsonMetrics {
+    enum Operation {
+        PARSE, AS_MAP, DUMP, CHECK;
+
+        /**
+         * Name in the dumps of MetricsRecorder!
+         */
+        public String key() { return name().toLowerCase(); }
+    }
+
+    void record(Operation operation, long nanos, long size, int depth, int nodes);
+
+    /**
+     * The operation failed after nanos! Recorded as one without shape by default.
+     */
+    default void failed(Operation operation, long nanos, long size) { record(operation, nanos, size, -1, -1); }
+
+    /**
+     * Want the depth and node count? They cost a walk over the tree per operation!
+     */
+    default boolean shape() { return false; }
+
+    /**
+     * The in-process histogram recorder, with the tree shape!
+     */
+    static MetricsRecorder recorder() { return new MetricsRecorder(true); }
+}
@@ -1,14 +1,23 @@
 package com.jpro.easyjson;
 
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
 
 /**
  * EasyJson API: Make jackson using more easily!
@@ -26,15 +35,15 @@ public class Json {
 
     /**
      * Prepared for JSON string parsing!
-     * If you want to parse JSON string concurrently,
-     * you should add a mutex for the member accessing!
+     * The config is immutable and lock-free, parse concurrently as you like!
+     * See EasyJsonConfig for the concurrency guarantees.
      */
-    private static ObjectMapper objectMapper = new ObjectMapper();
+    private static volatile EasyJsonConfig config = EasyJsonConfig.defaults();
 
     /**
      * Construct an empty JSON object!
      */
-    public Json() { root = JsonNodeFactory.instance.objectNode(); }
+    public Json() { root = config.nodeFactory().objectNode(); }
 
     /**
      * Jackson support!
@@ -46,6 +55,17 @@ public class Json {
      */
     public <E> Json(String k, E v) { this(); put(k, v); }
 
+    /**
+     * Install another parsing engine, e.g. with other Jackson features!
+     * Documents parsed before keep their nodes.
+     */
+    public static void configure(EasyJsonConfig config) {
+        if (config == null) throw new RuntimeException("Null config!");
+        Json.config = config;
+    }
+
+    public static EasyJsonConfig config() { return config; }
+
     /**
      * JSON array constructing interface!
      * Here, construct an empty JSON array!
@@ -58,10 +78,21 @@ public class Json {
      */
     public static <E> Array array(Collection<E> collection) { return new Array(collection); }
 
-    public Array toArray() {
-        final JsonNode pr = root;
-        return new Array() {{root = pr;}};
-    }
+    /**
+     * Construct a compact JSON array of numbers, see NumericArray!
+     */
+    public static NumericArray array(double[] values) { return new NumericArray(NumericArrayNode.DOUBLE).addAll(values); }
+
+    public static NumericArray array(long[] values) { return new NumericArray(NumericArrayNode.LONG).addAll(values); }
+
+    public static NumericArray array(int[] values) { return new NumericArray(NumericArrayNode.INT).addAll(values); }
+
+    public Array toArray() { return new Array(root); }
+
+    /**
+     * The array of numbers in primitive form, shared if it was parsed compact, copied if not!
+     */
+    public NumericArray toNumericArray() { return NumericArray.of(root); }
 
     /**
      * If the Json is basic type, you can obtain the raw value!
@@ -72,60 +103,203 @@ public class Json {
      * Parse JSON string and construct the corresponding JSON object!
      */
     public static Json parse(String json) {
+        EasyJsonConfig c = config;
+        long start = start(c);
         try {
-            JsonNode jsonNode = objectMapper.readTree(json);
-            return new Json() {{root = jsonNode;}};
+            JsonNode _r;
+            if (c.limits().unlimited()) {
+                _r = c.reader().readTree(json);
+            } else {
+                c.limits().size(json.length());
+                _r = tree(c, c.reader().createParser(json));
+            }
+            record(c, EasyJsonMetrics.Operation.PARSE, start, json.length(), _r);
+            return new Json(_r);
         } catch (IOException e) {
-            throw new RuntimeException("Parse json error!");
+            throw failed(c, EasyJsonMetrics.Operation.PARSE, start, json.length(), error(e));
         }
     }
 
     /**
-     * Parse Map<String, Object> structure!
-     * Some tools like YAML, will produce this kind of structure data!
+     * Parse UTF-8 bytes directly, no String in between!
      */
-    public static Json parse(Map<String, Object> root) {
-        Json here = new Json();
-        for (Map.Entry<String, Object> entry : root.entrySet()) {
-            String k = entry.getKey();
-            Object v = entry.getValue();
-            if (v instanceof String
-                    || v instanceof Integer
-                    || v instanceof Long
-                    || v instanceof Double
-                    || v instanceof Boolean
-            ) {
-                here.put(k, v);
-            } else if (v instanceof List) {
-                if (((List<Object>) v).isEmpty()) {
-                    here.put(k, Json.array());
-                } else {
-                    Object vv = ((List<Object>) v).get(0);
-                    if (vv instanceof String) {
-                        here.put(k, Json.array((List<String>) v));
-                    } else if (vv instanceof Integer) {
-                        here.put(k, Json.array((List<Integer>) v));
-                    } else if (vv instanceof Long) {
-                        here.put(k, Json.array((List<Long>) v));
-                    } else if (vv instanceof Double) {
-                        here.put(k, Json.array((List<Double>) v));
-                    } else if (vv instanceof Boolean) {
-                        here.put(k, Json.array((List<Boolean>) v));
-                    } else if (vv instanceof Map) {
-                        here.put(k, Json.array(((List<?>) v).stream().map(every -> parse((Map<String, Object>) every)).collect(Collectors.toList())));
-                    } else {
-                        throw new RuntimeException("Error json array! Key : " + k);
-                    }
-                }
-            } else if (v instanceof Map) {
-                here.put(k, parse((Map<String, Object>) v));
+    public static Json parse(byte[] json, int offset, int len) {
+        EasyJsonConfig c = config;
+        long start = start(c);
+        try {
+            JsonNode _r;
+            if (c.limits().unlimited()) {
+                _r = c.reader().readTree(json, offset, len);
             } else {
-                throw new RuntimeException("Error json type! Value : " + v);
+                c.limits().size(len);
+                _r = tree(c, c.reader().createParser(json, offset, len));
             }
+            record(c, EasyJsonMetrics.Operation.PARSE, start, len, _r);
+            return new Json(_r);
+        } catch (IOException e) {
+            throw failed(c, EasyJsonMetrics.Operation.PARSE, start, len, error(e));
+        }
+    }
+
+    /**
+     * Parse the output of Json::toBinary()!
+     */
+    public static Json parseBinary(byte[] binary) { return parseBinary(binary, 0, binary.length); }
+
+    public static Json parseBinary(byte[] binary, int offset, int len) {
+        EasyJsonConfig c = config;
+        long start = start(c);
+        JsonNode _r;
+        try {
+            _r = JsonBinary.decode(c, binary, offset, len);
+        } catch (RuntimeException e) {
+            throw failed(c, EasyJsonMetrics.Operation.PARSE, start, len, e);
         }
-        return here;
+        record(c, EasyJsonMetrics.Operation.PARSE, start, len, _r);
+        return new Json(_r);
     }
 
+    /**
+     * Parse the remaining UTF-8 bytes of the buffer, the buffer is consumed!
+     */
+    public static Json parse(ByteBuffer json) {
+        Json _r;
+        if (json.hasArray()) {
+            _r = parse(json.array(), json.arrayOffset() + json.position(), json.remaining());
+        } else {
+            _r = parse(new ByteBufferBackedInputStream(json.duplicate()));
+        }
+        json.position(json.limit());
+        return _r;
+    }
+
+    /**
+     * Parse the whole JSON stream, the stream is closed at the end!
+     */
+    public static Json parse(InputStream in) {
+        EasyJsonConfig c = config;
+        long start = start(c);
+        try {
+            JsonNode _r = tree(c, in);
+            record(c, EasyJsonMetrics.Operation.PARSE, start, -1, _r);
+            return new Json(_r);
+        } catch (IOException e) {
+            throw failed(c, EasyJsonMetrics.Operation.PARSE, start, -1, error(e));
+        }
+    }
+
+    /**
+     * Parse the blocking channel on the executor, overlapping the reads with the parse!
+     * Every read chunk is parsed at once, no whole-body buffer. The channel is left open.
+     * On virtual threads (Executors.newVirtualThreadPerTaskExecutor()) a waiting read parks
+     * the virtual thread only: nothing in the read loop holds a monitor.
+     */
+    public static CompletableFuture<Json> parseAsync(ReadableByteChannel channel, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> JsonAsyncParser.read(channel), executor);
+    }
+
+    /**
+     * Parse the JSON file, reading the memory-mapped bytes directly!
+     * No String and no byte[] copy of the file is held beside the tree.
+     */
+    public static Json parse(Path path) { return MappedJson.parse(path); }
+
+    /**
+     * Open the JSON file as a lazy view, nodes are built only for the values you touch!
+     * Use it for files larger than the heap, see MappedJson.
+     */
+    public static MappedJson parseLazy(Path path) { return MappedJson.open(path); }
+
+    /**
+     * Bind JSON string to the POJO or record directly, no tree and no Map in between!
+     * The codec of every class is built once and cached.
+     */
+    public static <T> T parse(String json, Class<T> type) {
+        EasyJsonConfig c = config;
+        try {
+            if (c.limits().unlimited()) return c.reader(type).readValue(json);
+            c.limits().size(json.length());
+            try (JsonParser parser = limit(c, c.reader(type).createParser(json))) {
+                return c.reader(type).readValue(parser);
+            }
+        } catch (IOException e) {
+            throw bindError(type, e);
+        }
+    }
+
+    /**
+     * Same as Json.parse(String, Class), reading UTF-8 bytes!
+     */
+    public static <T> T parse(byte[] json, int offset, int len, Class<T> type) {
+        EasyJsonConfig c = config;
+        try {
+            if (c.limits().unlimited()) return c.reader(type).readValue(json, offset, len);
+            c.limits().size(len);
+            try (JsonParser parser = limit(c, c.reader(type).createParser(json, offset, len))) {
+                return c.reader(type).readValue(parser);
+            }
+        } catch (IOException e) {
+            throw bindError(type, e);
+        }
+    }
+
+    /**
+     * Construct the JSON object of the POJO or record!
+     */
+    public static Json of(Object pojo) {
+        try {
+            JsonNode node = config.mapper().valueToTree(pojo);
+            return node != null && node.isArray() ? new Array(node) : new Json(node);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Bind json error! " + pojo.getClass().getName() + ", " + e.getMessage());
+        }
+    }
+
+    /**
+     * Open a pull cursor on the JSON stream, without building the tree!
+     * Close the cursor when done, it closes the stream too.
+     */
+    public static JsonCursor stream(InputStream in) {
+        try {
+            EasyJsonConfig c = config;
+            return new JsonCursor(limit(c, c.reader().createParser(LimitedJsonParser.limit(in, c.limits()))));
+        } catch (IOException e) {
+            throw error(e);
+        }
+    }
+
+    /**
+     * Same as Json::stream(InputStream), reading UTF-8 bytes!
+     */
+    public static JsonCursor stream(byte[] json) {
+        try {
+            EasyJsonConfig c = config;
+            c.limits().size(json.length);
+            return new JsonCursor(limit(c, c.reader().createParser(json)));
+        } catch (IOException e) {
+            throw error(e);
+        }
+    }
+
+    /**
+     * Same as Json::stream(InputStream), reading chars!
+     */
+    public static JsonCursor stream(Reader reader) {
+        try {
+            EasyJsonConfig c = config;
+            return new JsonCursor(limit(c, c.reader().createParser(reader)));
+        } catch (IOException e) {
+            throw error(e);
+        }
+    }
+
+    /**
+     * Parse Map<String, Object> structure!
+     * Some tools like YAML, will produce this kind of structure data!
+     * Converted in one pass, nested maps, lists, arrays and any Number included, see JsonConverter.
+     */
+    public static Json parse(Map<String, Object> root) { return new Json(JsonConverter.object(root, config.nodeFactory())); }
+
     public Json merge(Json other) {
         Json _r = new Json();
         Iterator<String> keys = root.fieldNames();
@@ -141,6 +315,28 @@ public class Json {
         return _r;
     }
 
+    /**
+     * Recursive merge, objects field by field, arrays replaced!
+     */
+    public Json deepMerge(Json other) { return deepMerge(other, MergePolicy.defaults()); }
+
+    /**
+     * Recursive merge, arrays by the strategies of the policy, see MergePolicy!
+     * This Json and other are not modified, the result is always a new top level container.
+     * Same as Json::merge(), the nested subtrees the merge doesn't change are shared with
+     * the sources, not copied: a write inside one of them shows in the source too.
+     */
+    public Json deepMerge(Json other, MergePolicy policy) {
+        JsonNode _r = JsonMerge.merge(root, other.root, policy, false);
+        if (_r == root || _r == other.root) _r = JsonMerge.fresh(_r);
+        return _r.isArray() ? new Array(_r) : new Json(_r);
+    }
+
+    /**
+     * Immutable copy of this Json, new versions share it, see PersistentJson!
+     */
+    public PersistentJson snapshot() { return PersistentJson.of(this); }
+
     public Json update(Json other) {
         Iterator<String> keys;
         keys = other.root.fieldNames();
@@ -152,36 +348,27 @@ public class Json {
     }
 
     public boolean has(String... keys) {
-        return get(keys).root != null;
+        return node(keys) != null;
     }
 
     /**
      * Value accessing by the passing keys!
      */
-    public Json get(String... keys) {
-        JsonNode last = root;
-        for (int i = 0; i < keys.length - 1; i++) {
-            if (!last.has(keys[i])) return new Json() {{root = null;}};
-            if (last.get(keys[i]).isObject())
-                last = last.get(keys[i]);
-            else
-                throw new RuntimeException("Json access error!");
+    public Json get(String... keys) { return wrap(node(keys)); }
+
+    /**
+     * Bind the JSON object to the POJO or record, walking the tree directly!
+     */
+    public <T> T as(Class<T> type) {
+        try {
+            return config.reader(type).readValue(root);
+        } catch (IOException e) {
+            throw bindError(type, e);
         }
-        final JsonNode innerLast = last;
-        return new Json() {{root = innerLast.get(keys[keys.length - 1]);}};
     }
 
     public <T> T getAs(String... keys) {
-        JsonNode last = root;
-        for (int i = 0; i < keys.length - 1; i++) {
-            if (!last.has(keys[i])) return null;
-            if (last.get(keys[i]).isObject())
-                last = last.get(keys[i]);
-            else
-                throw new RuntimeException("Json access error!");
-        }
-        final JsonNode innerLast = last;
-        JsonNode v = innerLast.get(keys[keys.length - 1]);
+        JsonNode v = node(keys);
         T _r;
         try {
             _r = (T) extract(v);
@@ -191,17 +378,74 @@ public class Json {
         return _r;
     }
 
-    public String getAsText(String... keys) {
-        Json ref = get(keys);
-        if (ref == null) throw new RuntimeException("Null value.");
-        if (ref.root.isTextual()) return ref.root.asText();
+    public String getAsText(String... keys) { return getText(keys); }
+
+    /*
+     * Primitive accessing by the passing keys!
+     * No Json wrapper and no boxing on the way, prefer them in hot paths.
+     * Hoist the keys, e.g. static final String[] AGE = {"profile", "age"}, then
+     * getInt(AGE) allocates nothing at all.
+     * A missing value is "Null value.", a value of another type is "Type error!".
+     */
+
+    public int getInt(String... keys) {
+        JsonNode v = require(keys);
+        if (v.isIntegralNumber() && v.canConvertToInt()) return v.intValue();
+        throw new RuntimeException("Type error! Not int.");
+    }
+
+    public long getLong(String... keys) {
+        JsonNode v = require(keys);
+        if (v.isIntegralNumber() && v.canConvertToLong()) return v.longValue();
+        throw new RuntimeException("Type error! Not long.");
+    }
+
+    public double getDouble(String... keys) {
+        JsonNode v = require(keys);
+        if (v.isNumber()) return v.doubleValue();
+        throw new RuntimeException("Type error! Not double.");
+    }
+
+    public boolean getBoolean(String... keys) {
+        JsonNode v = require(keys);
+        if (v.isBoolean()) return v.booleanValue();
+        throw new RuntimeException("Type error! Not boolean.");
+    }
+
+    public String getText(String... keys) {
+        JsonNode v = require(keys);
+        if (v.isTextual()) return v.textValue();
         throw new RuntimeException("Type error! Not string.");
     }
 
+    /**
+     * Inner using! Walk the keys, null if some key is missing.
+     */
+    JsonNode node(String... keys) {
+        JsonNode last = root;
+        for (int i = 0; i < keys.length - 1; i++) {
+            JsonNode next = last.get(keys[i]);
+            if (next == null) return null;
+            if (!next.isObject()) throw new RuntimeException("Json access error!");
+            last = next;
+        }
+        return last.get(keys[keys.length - 1]);
+    }
+
+    /**
+     * Inner using!
+     */
+    private JsonNode require(String... keys) {
+        JsonNode v = node(keys);
+        if (v == null || v.isNull()) throw new RuntimeException("Null value.");
+        return v;
+    }
+
     /**
      * JSON modify!
      */
     public <E> Json put(String k, E v) {
+        k = config.key(k);
         if (v == null) {
             ((ObjectNode) root).putNull(k);
         } else if (v instanceof Json) {
@@ -216,10 +460,8 @@ public class Json {
             ((ObjectNode) root).put(k, (Long) v);
         } else if (v instanceof Boolean) {
             ((ObjectNode) root).put(k, (Boolean) v);
-        } else if (v instanceof JsonNode) {
-            ((ObjectNode) root).put(k, (JsonNode) v);
         } else {
-            throw new RuntimeException("Unknown type");
+            ((ObjectNode) root).set(k, JsonConverter.node(v, config.nodeFactory()));
         }
         return this;
     }
@@ -233,64 +475,317 @@ public class Json {
         return _r;
     }
 
+    /**
+     * Visit every field in order, without building the keys() list!
+     */
+    public void forEachField(BiConsumer<String, ? super Json> action) {
+        Iterator<Map.Entry<String, JsonNode>> fields = root.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            action.accept(field.getKey(), wrap(field.getValue()));
+        }
+    }
+
+    /**
+     * Visit every field through the same view, no Json per field!
+     * The view is only valid inside the action, same as Array::forEach(JsonView, Consumer).
+     */
+    public void forEachField(JsonView view, BiConsumer<String, ? super JsonView> action) {
+        Iterator<Map.Entry<String, JsonNode>> fields = root.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            action.accept(field.getKey(), view.point(field.getValue(), frozen()));
+        }
+    }
+
     public Map<String, Object> asMap() {
-        List<String> ks = keys();
-        Map<String, Object> inner = new HashMap<>();
-        for (String k : ks) {
-            if (root.get(k).isObject()) {
-                inner.put(k, new Json(root.get(k)).asMap());
-            } else if (root.get(k).isArray()) {
-                inner.put(k, new Json(root.get(k)).toArray().asList());
-            } else if (root.get(k).isTextual()) {
-                inner.put(k, root.get(k).asText());
-            } else if (root.get(k).isBoolean()) {
-                inner.put(k, root.get(k).asBoolean());
-            } else if (root.get(k).isLong()) {
-                inner.put(k, root.get(k).asLong());
-            } else if (root.get(k).isInt()) {
-                inner.put(k, root.get(k).asInt());
-            } else if (root.get(k).isDouble()) {
-                inner.put(k, root.get(k).asDouble());
-            } else if (root.get(k).isFloat()) {
-                inner.put(k, root.get(k).asDouble());
-            } else if (root.get(k).isNull()) {
-                inner.put(k, null);
+        EasyJsonConfig c = config;
+        long start = start(c);
+        Map<String, Object> _r;
+        try {
+            _r = map();
+        } catch (RuntimeException e) {
+            throw failed(c, EasyJsonMetrics.Operation.AS_MAP, start, -1, e);
+        }
+        record(c, EasyJsonMetrics.Operation.AS_MAP, start, -1, root);
+        return _r;
+    }
+
+    /**
+     * Inner using! Json::asMap() of the nested objects, not reported to the metrics.
+     */
+    @SuppressWarnings("unchecked")
+    Map<String, Object> map() { return (Map<String, Object>) plain(root, new HashMap<>()); }
+
+    /**
+     * Inner using! Fill the Map (object fields) or the List (array elements) with the plain values of the node.
+     * Nested containers are filled from an explicit stack, not by recursion, any depth is fine.
+     * Objects become HashMap, arrays ArrayList, a null in an array becomes 0.0 (as it always did).
+     */
+    static Object plain(JsonNode node, Object target) {
+        Deque<Plain> stack = new ArrayDeque<>();
+        stack.push(new Plain(node, target));
+        while (!stack.isEmpty()) {
+            Plain each = stack.pop();
+            if (each.target instanceof Map) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> inner = (Map<String, Object>) each.target;
+                Iterator<Map.Entry<String, JsonNode>> fields = each.node.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    inner.put(field.getKey(), plain(field.getValue(), field.getKey(), false, stack));
+                }
             } else {
-                throw new RuntimeException("Unknown key(" + k + ") type : " + root.get(k).getNodeType().toString());
+                @SuppressWarnings("unchecked")
+                List<Object> inner = (List<Object>) each.target;
+                for (int k = 0; k < each.node.size(); k++) {
+                    inner.add(plain(each.node.get(k), k, true, stack));
+                }
             }
         }
-        return inner;
+        return target;
+    }
+
+    private static Object plain(JsonNode value, Object k, boolean element, Deque<Plain> stack) {
+        if (value.isObject()) {
+            Map<String, Object> _r = new HashMap<>();
+            stack.push(new Plain(value, _r));
+            return _r;
+        } else if (value.isArray()) {
+            List<Object> _r = new ArrayList<>(value.size());
+            stack.push(new Plain(value, _r));
+            return _r;
+        } else if (value.isTextual()) {
+            return value.asText();
+        } else if (value.isBoolean()) {
+            return value.asBoolean();
+        } else if (value.isLong()) {
+            return value.asLong();
+        } else if (value.isInt()) {
+            return value.asInt();
+        } else if (value.isDouble()) {
+            return value.asDouble();
+        } else if (value.isFloat()) {
+            return value.asDouble();
+        } else if (value.isNull()) {
+            return element ? (Object) value.asDouble() : null;
+        } else {
+            throw new RuntimeException("Unknown key(" + k + ") type : " + value.getNodeType().toString());
+        }
+    }
+
+    /**
+     * Inner using! A container of the plain() stack, the node and the Map or List to fill.
+     */
+    private static class Plain {
+        final JsonNode node;
+        final Object target;
+
+        Plain(JsonNode node, Object target) {
+            this.node = node;
+            this.target = target;
+        }
     }
 
     public static Map<String, Object> asMap(String json) {
+        EasyJsonConfig c = config;
+        long start = start(c);
         try {
-            return (Map<String,Object>) objectMapper.readValue(json, Map.class);
-        } catch (JsonProcessingException e) {
-            e.printStackTrace();
-            return new HashMap<>();
+            Map<String, Object> _r;
+            if (c.limits().unlimited()) {
+                _r = c.mapReader().readValue(json);
+            } else {
+                c.limits().size(json.length());
+                try (JsonParser parser = limit(c, c.mapReader().createParser(json))) {
+                    _r = c.mapReader().readValue(parser);
+                }
+            }
+            record(c, EasyJsonMetrics.Operation.AS_MAP, start, json.length(), null);
+            return _r;
+        } catch (IOException e) {
+            throw failed(c, EasyJsonMetrics.Operation.AS_MAP, start, json.length(), error(e));
         }
     }
 
     /**
      * To JSON string!
      */
-    public String dumps() { return root.toString(); }
+    public String dumps() { return JsonWriter.COMPACT.toString(this); }
+
+    /**
+     * To JSON string, indented!
+     */
+    public String dumpsPretty() { return JsonWriter.PRETTY.toString(this); }
+
+    /**
+     * To JSON string with the object keys sorted at every level, same content gives same text!
+     */
+    public String dumpsCanonical() { return JsonWriter.CANONICAL.toString(this); }
 
     /**
      * Same as Json::dumps() method!
      */
     @Override
-    public String toString() { return root.toString(); }
+    public String toString() { return dumps(); }
+
+    /**
+     * To UTF-8 bytes of JSON string, no String in between!
+     */
+    public byte[] dumpsBytes() { return JsonWriter.COMPACT.toBytes(this); }
+
+    /**
+     * To compact binary, repeated keys written once! Read it back by Json.parseBinary().
+     */
+    public byte[] toBinary() { return toBinary(true); }
+
+    /**
+     * To compact binary, sharedKeys false writes every key in full, for one-off small documents!
+     */
+    public byte[] toBinary(boolean sharedKeys) { return JsonBinary.encode(root, sharedKeys); }
+
+    /**
+     * Append JSON to the StringBuilder, Writer or any Appendable!
+     */
+    public void writeTo(Appendable out) { JsonWriter.COMPACT.write(this, out); }
+
+    /**
+     * Write UTF-8 JSON to the stream, the stream is flushed but left open!
+     */
+    public void writeTo(OutputStream out) { JsonWriter.COMPACT.write(this, out); }
+
+    /**
+     * Write UTF-8 JSON into the buffer from its position!
+     * BufferOverflowException is thrown if the buffer is too small.
+     */
+    public void writeTo(ByteBuffer buffer) { JsonWriter.COMPACT.write(this, buffer); }
 
     public JsonNode getRoot() { return root; }
 
+    /**
+     * Inner using! The parser checking the limits of the config, as is without limits.
+     */
+    static JsonParser limit(EasyJsonConfig c, JsonParser parser) {
+        return c.limits().unlimited() ? parser : new LimitedJsonParser(parser, c.limits());
+    }
+
+    /**
+     * Inner using! Read the tree of the whole stream through the limits, the stream is closed at the end.
+     */
+    static JsonNode tree(EasyJsonConfig c, InputStream in) throws IOException {
+        if (c.limits().unlimited()) return c.reader().readTree(in);
+        return tree(c, c.reader().createParser(LimitedJsonParser.limit(in, c.limits())));
+    }
+
+    /**
+     * Inner using! Read the tree through the limits, the parser is closed at the end.
+     */
+    private static JsonNode tree(EasyJsonConfig c, JsonParser parser) throws IOException {
+        try (JsonParser limited = new LimitedJsonParser(parser, c.limits())) {
+            JsonNode _r = c.reader().readTree(limited);
+            return _r == null ? c.nodeFactory().missingNode() : _r;
+        }
+    }
+
+    /**
+     * Inner using! The parse failure, with the offset of the bad token when Jackson knows it.
+     * Byte offset for bytes and streams, char offset for a String or a Reader.
+     */
+    static RuntimeException error(IOException e) { return error(e, 0); }
+
+    /**
+     * Inner using! Same, for a slice of a bigger input starting at the passing offset.
+     */
+    static RuntimeException error(IOException e, long base) {
+        String where = where(e, base);
+        return new RuntimeException(where == null ? "Parse json error!" : "Parse json error! " + where);
+    }
+
+    private static RuntimeException bindError(Class<?> type, IOException e) {
+        String where = where(e, 0);
+        return new RuntimeException("Bind json error! " + type.getName() + (where == null ? "" : ", " + where));
+    }
+
+    /**
+     * Inner using! "Offset : n, reason" of the failure, the reason only if Jackson doesn't know where
+     * (a tree walked by Json::as()), null if not a Jackson failure.
+     */
+    private static String where(IOException e, long base) {
+        if (!(e instanceof JsonProcessingException)) return null;
+        JsonProcessingException failure = (JsonProcessingException) e;
+        JsonLocation at = failure.getLocation();
+        long offset = at == null ? -1 : at.getByteOffset() >= 0 ? at.getByteOffset() : at.getCharOffset();
+        if (offset < 0) return failure.getOriginalMessage();
+        return "Offset : " + (base + offset) + ", " + failure.getOriginalMessage();
+    }
+
+    /**
+     * Inner using! Report the failure to the metrics of the config, the error passes through.
+     */
+    static RuntimeException failed(EasyJsonConfig c, EasyJsonMetrics.Operation operation, long start, long size, RuntimeException e) {
+        EasyJsonMetrics metrics = c.metrics();
+        if (metrics != null) metrics.failed(operation, System.nanoTime() - start, size);
+        return e;
+    }
+
+    /**
+     * Inner using! Start time of a metered operation, no clock read without metrics.
+     */
+    static long start(EasyJsonConfig c) { return c.metrics() == null ? 0 : System.nanoTime(); }
+
+    /**
+     * Inner using! Report the operation to the metrics of the config, with the shape of the tree if wanted.
+     */
+    static void record(EasyJsonConfig c, EasyJsonMetrics.Operation operation, long start, long size, JsonNode node) {
+        EasyJsonMetrics metrics = c.metrics();
+        if (metrics == null) return;
+        long nanos = System.nanoTime() - start;
+        int depth = -1, nodes = -1;
+        if (node != null && metrics.shape()) {
+            /* Level by level, no recursion. */
+            int leaves = 0;
+            depth = 0;
+            nodes = 0;
+            List<JsonNode> level = new ArrayList<>(), next = new ArrayList<>();
+            level.add(node);
+            while (!level.isEmpty()) {
+                depth++;
+                nodes += level.size();
+                for (JsonNode each : level) {
+                    if (each instanceof NumericArrayNode && ((NumericArrayNode) each).kind() != NumericArrayNode.INFLATED) {
+                        /* Leaves without nodes, counted without building them. */
+                        if (each.size() > 0) leaves = depth + 1;
+                        nodes += each.size();
+                    } else if (each.isContainerNode()) {
+                        for (JsonNode child : each) next.add(child);
+                    }
+                }
+                List<JsonNode> swap = level;
+                level = next;
+                next = swap;
+                next.clear();
+            }
+            depth = Math.max(depth, leaves);
+        }
+        metrics.record(operation, nanos, size, depth, nodes);
+    }
+
+    /**
+     * Inner using! The Json of a node below this one, read-only if this one is.
+     */
+    Json wrap(JsonNode node) { return frozen() ? new PersistentJson(node) : new Json(node); }
+
+    /**
+     * Inner using! True if the nodes are shared and must not be written, see PersistentJson.
+     */
+    boolean frozen() { return false; }
+
     /**
      * Inner using!
      */
     private Object extract(JsonNode node) {
         if (node == null) return null;
         if (node.isObject()) {
-            return new Json() {{root = node;}};
+            return wrap(node);
         } else if (node.isTextual()) {
             return node.asText();
         } else if (node.isDouble()) {
@@ -311,91 +806,106 @@ public class Json {
         return equal(this, json, k);
     }
 
+    /**
+     * Check the json against the template: every field of the template must be
+     * in the json with an equal value, arrays must be equal as a whole.
+     * The first violation is described in k, by its JSON Pointer path.
+     */
     public static boolean equal(Json json, Json template, StringBuilder k) {
-        JsonNode comp = template.root;
-        JsonNode roof = json.root;
-        if (comp.isArray()) {
-            if (roof.isArray()) {
-                if (comp.toString().equals(roof.toString())) {
-                    return true;
-                } else {
-                    k.append("[A] Top value not equal");
-                    return false;
-                }
-            } else {
-                k.append("[O] Top different type");
-                return false;
-            }
-        }
-        Iterator<String> keys = comp.fieldNames();
-        while (keys.hasNext()) {
-            String key = keys.next();
-            if (!roof.has(key)) {k.append("No ").append(key);return false;}
-            if (comp.get(key).isObject()) {
-                if (roof.get(key).isObject())
-                    return equal(new Json() {{root = roof.get(key);}}, new Json() {{root = comp.get(key);}}, k);
-                else {
-                    k.append("[O] Different key[").append(key).append("] value type");
-                    return false;
-                }
-            }
-
-            if (comp.get(key).isArray()) {
-                if (roof.get(key).isArray()) {
-                    if (comp.get(key).toString().equals(roof.get(key).toString())) {
-                        System.out.println(comp.get(key).toString());
-                        System.out.println(roof.get(key).toString());
-                        continue;
-                    } else {
-                        k.append("[A] Key[").append(key).append("] value not equal.");
-                        return false;
-                    }
-                } else {
-                    k.append("[A] Different key[").append(key).append("] value type");
-                    return false;
-                }
-            }
-            if (comp.get(key).isTextual() ) {if (roof.get(key).isTextual() ) {if (comp.get(key).asText().equals(roof.get(key).asText()))     continue; else {k.append("[S] Key[").append(key).append("] value not equal.");return false;}} else {k.append("[S] Different key[").append(key).append("] value type"); return false;}}
-            if (comp.get(key).isBoolean() ) {if (roof.get(key).isBoolean() ) {if (comp.get(key).asBoolean() == roof.get(key).asBoolean())    continue; else {k.append("[B] Key[").append(key).append("] value not equal.");return false;}} else {k.append("[B] Different key[").append(key).append("] value type"); return false;}}
-            if (comp.get(key).isInt()     ) {if (roof.get(key).isInt()     ) {if (comp.get(key).asInt() == roof.get(key).asInt())            continue; else {k.append("[I] Key[").append(key).append("] value not equal.");return false;}} else {k.append("[I] Different key[").append(key).append("] value type"); return false;}}
-            if (comp.get(key).isLong()    ) {if (roof.get(key).isLong()    ) {if (comp.get(key).isLong() == roof.get(key).isLong())          continue; else {k.append("[L] Key[").append(key).append("] value not equal.");return false;}} else {k.append("[L] Different key[").append(key).append("] value type"); return false;}}
-            if (comp.get(key).isDouble()  ) {if (roof.get(key).isDouble()  ) {if (comp.get(key).asDouble() == roof.get(key).asDouble())      continue; else {k.append("[D] Key[").append(key).append("] value not equal.");return false;}} else {k.append("[D] Different key[").append(key).append("] value type"); return false;}}
-            if (comp.get(key).isNull()    && roof.get(key).isNull()   ) continue;
-            throw new RuntimeException("Unknown type." + comp.get(key));
+        JsonDiff violation = JsonDiff.check(json.root, template.root);
+        if (violation == null) return true;
+        char tag = JsonDiff.tag(violation.target);
+        boolean sameType = violation.source != null && violation.target != null
+                && (violation.source.getNodeType() == violation.target.getNodeType()
+                    || violation.source.isNumber() && violation.target.isNumber());
+        String key = violation.path.isEmpty() ? null : violation.path.substring(1);
+        if ("add".equals(violation.op)) {
+            k.append("No ").append(key);
+        } else if (key == null) {
+            k.append('[').append(tag).append("] Top ").append(sameType ? "value not equal" : "different type");
+        } else if (sameType) {
+            k.append('[').append(tag).append("] Key[").append(key).append("] value not equal.");
+        } else {
+            k.append('[').append(tag).append("] Different key[").append(key).append("] value type");
         }
-        return true;
+        return false;
     }
 
+    /**
+     * Structural diff, the RFC 6902 JSON Patch turning this into the other!
+     */
+    public Array diff(Json other) { return diff(this, other); }
+
+    /**
+     * Structural diff, the RFC 6902 JSON Patch turning a into b!
+     * Operations are add, remove and replace, paths are RFC 6901 JSON Pointers,
+     * array elements are compared by index. Nothing is serialized on the way.
+     */
+    public static Array diff(Json a, Json b) { return new Array(JsonDiff.diff(a.root, b.root)); }
+
+    /**
+     * Check the types of the template fields, stops at the first violation!
+     * Checking many documents against the same template? Compile it by JsonSchema.compile().
+     */
     public boolean check(Json template, StringBuilder k) {
         return check(this, template, k);
     }
 
     public static boolean check(Json json, Json template, StringBuilder k) {
-        JsonNode comp = template.root;
-        JsonNode roof = json.root;
-        Iterator<String> keys = comp.fieldNames();
-        while (keys.hasNext()) {
-            String key = keys.next();
+        EasyJsonConfig c = config;
+        long start = start(c);
+        boolean _r = fields(json, template, k);
+        record(c, EasyJsonMetrics.Operation.CHECK, start, -1, json.root);
+        return _r;
+    }
+
+    /**
+     * Inner using! Json.check() of the nested objects, not reported to the metrics.
+     * Depth first from an explicit stack, not by recursion, the same first violation as always.
+     */
+    private static boolean fields(Json json, Json template, StringBuilder k) {
+        Deque<Check> stack = new ArrayDeque<>();
+        stack.push(new Check(json.root, template.root));
+        while (!stack.isEmpty()) {
+            Check each = stack.peek();
+            if (!each.keys.hasNext()) {
+                stack.pop();
+                continue;
+            }
+            String key = each.keys.next();
+            JsonNode comp = each.comp.get(key);
+            JsonNode roof = each.roof.get(key);
 //            System.out.println("json key : " + key);
-            if (!roof.has(key)) {k.append("No ").append(key);return false;}
-            if (comp.get(key).isObject()) {
-                if (roof.get(key).isObject()) {
-                    if (!check(new Json() {{root = roof.get(key);}}, new Json() {{root = comp.get(key);}}, k))
-                        return false;
-                } else {
-                    k.append("Error Type of ").append(key);
-                    return false;
+            if (!each.roof.has(key)) {k.append("No ").append(key);return false;}
+            if (comp.isObject()) {
+                if (roof.isObject()) {
+                    stack.push(new Check(roof, comp));
+                    continue;
                 }
+                k.append("Error Type of ").append(key);
+                return false;
             }
-//            if (comp.get(key).isObject()
-//                && !check(new Json() {{root = roof.get(key);}}, new Json() {{root = comp.get(key);}}, k))
-//                return false;
-            if (comp.get(key).isArray()   && !roof.get(key).isArray()  ) {k.append("Error Type of ").append(key);return false;}
-            if (comp.get(key).isTextual() && !roof.get(key).isTextual()) {k.append("Error Type of ").append(key);return false;}
-            if (comp.get(key).isBoolean() && !roof.get(key).isBoolean()) {k.append("Error Type of ").append(key);return false;}
-            if (comp.get(key).isNumber()  && !roof.get(key).isNumber() ) {k.append("Error Type of ").append(key);return false;}
-            if (comp.get(key).isNull()    && !roof.get(key).isNull()   ) {k.append("Error Type of ").append(key);return false;}
+            if (comp.isArray()   && !roof.isArray()  ) {k.append("Error Type of ").append(key);return false;}
+            if (comp.isTextual() && !roof.isTextual()) {k.append("Error Type of ").append(key);return false;}
+            if (comp.isBoolean() && !roof.isBoolean()) {k.append("Error Type of ").append(key);return false;}
+            if (comp.isNumber()  && !roof.isNumber() ) {k.append("Error Type of ").append(key);return false;}
+            if (comp.isNull()    && !roof.isNull()   ) {k.append("Error Type of ").append(key);return false;}
         }
         return true;
     }
+
+    /**
+     * Inner using! An object of the fields() stack, with the template keys left to check.
+     */
+    private static class Check {
+        final JsonNode roof;
+        final JsonNode comp;
+        final Iterator<String> keys;
+
+        Check(JsonNode roof, JsonNode comp) {
+            this.roof = roof;
+            this.comp = comp;
+            this.keys = comp.fieldNames();
+        }
+    }
 }
@@ -0,0 +1,312 @@
+package com.jpro.easyjson;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Non-blocking parser, feed it the bytes as they arrive, get the Json values as they complete!
+ * Built on the Jackson non-blocking parser: a chunk never blocks and may end anywhere,
+ * in the middle of a string or a number, the parser keeps the partial token.
+ * Several root values in a row (e.g. newline delimited JSON) come out one by one.
+ *
+ * Usage:
+ *   JsonAsyncParser parser = new JsonAsyncParser();
+ *   while (channel.read(buffer) > 0) {
+ *       buffer.flip();
+ *       for (Json json : parser.feed(buffer)) handle(json);
+ *       buffer.clear();
+ *   }
+ *   for (Json json : parser.end()) handle(json);
+ *
+ * The trees are the ones of Json.parse() under the same config, compactNumericArrays and
+ * ParseLimits included (maxDocumentBytes per root value), errors are "Parse json error! Offset : n, ..." alike.
+ * The fed bytes are consumed before feed() returns, reuse the buffer freely.
+ * A parser is not thread-safe, feed it from one thread at a time.
+ */
+public class JsonAsyncParser implements Closeable {
+    private static final int CHUNK = 8192;
+
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final JsonNodeFactory factory;
+    private final ParseLimits limits;
+    private final boolean bigDecimals, bigIntegers, longs, compact;
+
+    /**
+     * Open containers of the value in progress, innermost first.
+     */
+    private final Deque<Open> open = new ArrayDeque<>();
+    private String name;
+    private byte[] chunk;
+    private long fed;
+
+    /**
+     * Byte offset of the end of the last root value, where the one in progress starts.
+     */
+    private long begin;
+    private boolean ended;
+
+    public JsonAsyncParser() {
+        EasyJsonConfig config = Json.config();
+        JsonParser raw;
+        try {
+            raw = config.mapper().getFactory().createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new RuntimeException("Parse json error!");
+        }
+        feeder = (ByteArrayFeeder) raw.getNonBlockingInputFeeder();
+        parser = Json.limit(config, raw);
+        limits = config.limits();
+        factory = config.nodeFactory();
+        DeserializationConfig features = config.mapper().getDeserializationConfig();
+        bigDecimals = features.isEnabled(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+        bigIntegers = features.isEnabled(DeserializationFeature.USE_BIG_INTEGER_FOR_INTS);
+        longs = features.isEnabled(DeserializationFeature.USE_LONG_FOR_INTS);
+        compact = config.compactNumericArrays();
+    }
+
+    /**
+     * Parse the remaining bytes of the buffer, the buffer is consumed!
+     * The values completed by these bytes, in order, often none.
+     */
+    public List<Json> feed(ByteBuffer bytes) {
+        if (bytes.hasArray()) {
+            List<Json> _r = feed(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+            bytes.position(bytes.limit());
+            return _r;
+        }
+        /* Direct buffer, through a chunk of heap. */
+        if (chunk == null) chunk = new byte[CHUNK];
+        List<Json> _r = null;
+        while (bytes.hasRemaining()) {
+            int len = Math.min(chunk.length, bytes.remaining());
+            bytes.get(chunk, 0, len);
+            List<Json> values = feed(chunk, 0, len);
+            if (values.isEmpty()) continue;
+            if (_r == null) _r = new ArrayList<>(values.size());
+            _r.addAll(values);
+        }
+        return _r == null ? Collections.emptyList() : _r;
+    }
+
+    public List<Json> feed(byte[] bytes, int offset, int len) {
+        if (len == 0) return Collections.emptyList();
+        fed += len;
+        try {
+            feeder.feedInput(bytes, offset, offset + len);
+            List<Json> _r = drain(JsonToken.NOT_AVAILABLE);
+            /* The value still in progress. */
+            size(fed);
+            return _r;
+        } catch (IOException e) {
+            throw error(e);
+        }
+    }
+
+    /**
+     * No more input! The values completed by the end (e.g. a root number), an error if a value is cut.
+     */
+    public List<Json> end() {
+        try {
+            feeder.endOfInput();
+            ended = true;
+            List<Json> _r = drain(null);
+            if (!open.isEmpty()) throw error("Unexpected end of input");
+            return _r;
+        } catch (IOException e) {
+            throw error(e);
+        }
+    }
+
+    /**
+     * Bytes parsed so far!
+     * Past the end, Jackson 2.12 counts the last chunk twice, all the fed bytes are parsed by then.
+     */
+    public long offset() { return ended ? fed : parser.getCurrentLocation().getByteOffset(); }
+
+    @Override
+    public void close() {
+        try {
+            parser.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Parse json error!");
+        }
+    }
+
+    /**
+     * Inner using! Build the tree token by token until the parser wants more input.
+     * A container is attached to its parent once closed: an array of numbers may still
+     * turn from compact to plain while it is read, as in NumericArrayNode.Deserializer.
+     */
+    private List<Json> drain(JsonToken stop) throws IOException {
+        List<Json> _r = null;
+        JsonToken token;
+        while ((token = parser.nextToken()) != stop && token != null) {
+            JsonNode done;
+            switch (token) {
+                case FIELD_NAME:
+                    name = parser.currentName();
+                    continue;
+                case START_OBJECT:
+                    open.push(new Open(factory.objectNode(), name));
+                    continue;
+                case START_ARRAY:
+                    /* Compact or plain, the first element tells. */
+                    open.push(new Open(compact ? null : factory.arrayNode(), name));
+                    continue;
+                case END_OBJECT:
+                case END_ARRAY:
+                    Open closed = open.pop();
+                    done = closed.node == null ? factory.arrayNode() : closed.node;
+                    if (open.isEmpty()) break;
+                    name = closed.name;
+                    attach(done);
+                    continue;
+                default:
+                    if (open.isEmpty()) {
+                        done = scalar(token);
+                        break;
+                    }
+                    if (!number(token)) attach(scalar(token));
+                    continue;
+            }
+            if (_r == null) _r = new ArrayList<>(1);
+            _r.add(new Json(done));
+            long end = offset();
+            size(end);
+            begin = end;
+        }
+        return _r == null ? Collections.emptyList() : _r;
+    }
+
+    /**
+     * Inner using! maxDocumentBytes of the root value from begin to the passing offset.
+     */
+    private void size(long end) {
+        if (end - begin > limits.maxDocumentBytes())
+            throw error("Parse limit exceeded, document over the limit of " + limits.maxDocumentBytes());
+    }
+
+    /**
+     * Append the number token to the compact array in progress, false if there is none or it doesn't fit.
+     */
+    private boolean number(JsonToken token) throws IOException {
+        Open top = open.peek();
+        if (top.node == null) {
+            if (!top.array) return false;
+            int kind = NumericArrayNode.compact(token, parser, bigIntegers, longs, bigDecimals);
+            if (kind == NumericArrayNode.INFLATED) return false;
+            top.node = new NumericArrayNode(factory, kind, !longs);
+        }
+        return top.node instanceof NumericArrayNode && ((NumericArrayNode) top.node).append(parser);
+    }
+
+    private void attach(JsonNode value) {
+        Open top = open.peek();
+        if (top.node == null) top.node = factory.arrayNode();
+        else if (top.node instanceof NumericArrayNode) top.node = ((NumericArrayNode) top.node).plain();
+        if (top.array) ((ArrayNode) top.node).add(value);
+        else ((ObjectNode) top.node).set(name, value);
+    }
+
+    private JsonNode scalar(JsonToken token) throws IOException {
+        switch (token) {
+            case VALUE_STRING:
+                return factory.textNode(parser.getText());
+            case VALUE_NUMBER_INT:
+                JsonParser.NumberType type = parser.getNumberType();
+                if (bigIntegers || type == JsonParser.NumberType.BIG_INTEGER) return factory.numberNode(parser.getBigIntegerValue());
+                if (longs || type == JsonParser.NumberType.LONG) return factory.numberNode(parser.getLongValue());
+                return factory.numberNode(parser.getIntValue());
+            case VALUE_NUMBER_FLOAT:
+                if (bigDecimals) return factory.numberNode(parser.getDecimalValue());
+                return factory.numberNode(parser.getDoubleValue());
+            case VALUE_TRUE:
+                return factory.booleanNode(true);
+            case VALUE_FALSE:
+                return factory.booleanNode(false);
+            case VALUE_NULL:
+                return factory.nullNode();
+            default:
+                throw error("Unexpected token " + token);
+        }
+    }
+
+    /**
+     * Inner using! Same messages as Json.parse(), at the byte offset the parser stands on.
+     * Not the location of the exception, the token locations of the Jackson 2.12 non-blocking
+     * parser include the array offset of the chunk.
+     */
+    private RuntimeException error(IOException e) {
+        return error(e instanceof JsonProcessingException ? ((JsonProcessingException) e).getOriginalMessage() : e.getMessage());
+    }
+
+    private RuntimeException error(String message) { return new RuntimeException("Parse json error! Offset : " + offset() + ", " + message); }
+
+    /**
+     * An open container, null node for an array before its first element, and the field name holding it.
+     */
+    private static class Open {
+        final boolean array;
+        final String name;
+        JsonNode node;
+
+        Open(JsonNode node, String name) {
+            this.array = node == null || node.isArray();
+            this.node = node;
+            this.name = name;
+        }
+    }
+
+    /**
+     * Json.parseAsync() support! Read the blocking channel to its end, exactly one value expected.
+     * Reported to EasyJsonMetrics as a parse of the bytes read.
+     */
+    static Json read(ReadableByteChannel channel) {
+        EasyJsonConfig c = Json.config();
+        long start = Json.start(c);
+        try (JsonAsyncParser parser = new JsonAsyncParser()) {
+            try {
+                ByteBuffer buffer = ByteBuffer.allocate(CHUNK);
+                Json _r = null;
+                while (channel.read(buffer) >= 0) {
+                    buffer.flip();
+                    _r = parser.one(_r, parser.feed(buffer));
+                    buffer.clear();
+                }
+                _r = parser.one(_r, parser.end());
+                if (_r == null) throw parser.error("Empty input");
+                Json.record(c, EasyJsonMetrics.Operation.PARSE, start, parser.fed, _r.root);
+                return _r;
+            } catch (IOException e) {
+                throw Json.failed(c, EasyJsonMetrics.Operation.PARSE, start, parser.fed, parser.error(e));
+            } catch (RuntimeException e) {
+                throw Json.failed(c, EasyJsonMetrics.Operation.PARSE, start, parser.fed, e);
+            }
+        }
+    }
+
+    private Json one(Json got, List<Json> values) {
+        if (values.isEmpty()) return got;
+        if (got != null || values.size() > 1) throw error("More than one value");
+        return values.get(0);
+    }
+}
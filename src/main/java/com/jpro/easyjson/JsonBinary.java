@@ -0,0 +1,556 @@
+package com.jpro.easyjson;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.BinaryNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.POJONode;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Binary codec behind Json::toBinary() and Json.parseBinary()!
+ * Self-contained, no module needed, the decoded tree has the same node types as the encoded one,
+ * so dumps() gives the same text on both sides.
+ *
+ * Layout: 'E' 'J' version flags, then one value. A value starts with a tag byte:
+ *   0x00 null, 0x01 false, 0x02 true
+ *   0x03 int, 0x04 long             zigzag varint
+ *   0x05 double, 0x06 float         IEEE 754, big endian
+ *   0x07 big integer                varint length, two's complement bytes
+ *   0x08 big decimal                zigzag varint scale, then as big integer
+ *   0x09 string, 0x0A binary        varint length, UTF-8 / raw bytes
+ *   0x0B array, 0x0C object         varint count, values / key value pairs
+ *   0x0D int[], 0x0E long[]         varint count, zigzag varints (compact numeric arrays)
+ *   0x0F double[]                   varint count, IEEE 754 each
+ *   0x80 - 0xBF                     int -16 to 47, no payload
+ *   0xC0 - 0xDF                     string of 0 to 31 UTF-8 bytes
+ * A key is a varint length and UTF-8. With shared keys (flag 0x01) the varint is
+ * length << 1 for a new key, index << 1 | 1 for a key seen before: a repeated key costs 1 or 2 bytes.
+ *
+ * Decoding keeps the open containers on a stack of its own, not on the thread stack, and checks
+ * the ParseLimits of the config: depth, size, string chars, fields, big numbers. The number length
+ * of a big integer or decimal is estimated from its bytes.
+ */
+class JsonBinary {
+    static final int VERSION = 1;
+    static final int SHARED_KEYS = 0x01;
+
+    private static final int NULL = 0x00, FALSE = 0x01, TRUE = 0x02, INT = 0x03, LONG = 0x04, DOUBLE = 0x05,
+            FLOAT = 0x06, BIG_INTEGER = 0x07, BIG_DECIMAL = 0x08, STRING = 0x09, BINARY = 0x0A, ARRAY = 0x0B,
+            OBJECT = 0x0C, INTS = 0x0D, LONGS = 0x0E, DOUBLES = 0x0F, SMALL_INT = 0x80, SHORT_STRING = 0xC0;
+    private static final int SMALL_MIN = -16, SMALL_MAX = 47, SHORT_MAX = 31;
+
+    /**
+     * Keys longer than this are not shared, nor more than MAX_SHARED of them.
+     */
+    private static final int SHARED_KEY_BYTES = 64, MAX_SHARED = 1024;
+
+    private JsonBinary() {}
+
+    /**
+     * Results above this size don't keep their buffer for the next call.
+     */
+    private static final int KEEP = 1 << 20;
+
+    private static final ThreadLocal<Encoder[]> ENCODERS = ThreadLocal.withInitial(() -> new Encoder[]{new Encoder()});
+
+    static byte[] encode(JsonNode root, boolean sharedKeys) {
+        /* Per thread encoder, taken while in use. */
+        Encoder[] slot = ENCODERS.get();
+        Encoder encoder = slot[0] == null ? new Encoder() : slot[0];
+        slot[0] = null;
+        try {
+            return encoder.encode(root, sharedKeys);
+        } finally {
+            encoder.out.size = 0;
+            encoder.keys.clear();
+            slot[0] = encoder.out.buffer.length <= KEEP ? encoder : new Encoder();
+        }
+    }
+
+    static JsonNode decode(EasyJsonConfig c, byte[] bytes, int offset, int len) {
+        if (len > c.limits().maxDocumentBytes())
+            throw new RuntimeException("Parse binary error! Offset : " + c.limits().maxDocumentBytes() + ", Parse limit exceeded, document of "
+                    + len + " over the limit of " + c.limits().maxDocumentBytes());
+        if (len < 4 || bytes[offset] != 'E' || bytes[offset + 1] != 'J') throw new RuntimeException("Parse binary error! Not easyjson binary.");
+        if (bytes[offset + 2] != VERSION) throw new RuntimeException("Parse binary error! Version : " + bytes[offset + 2]);
+        Decoder decoder = new Decoder(c, bytes, offset, len, (bytes[offset + 3] & SHARED_KEYS) != 0);
+        JsonNode _r = decoder.value();
+        if (decoder.pos != decoder.end) throw new RuntimeException("Parse binary error! Trailing bytes at " + (decoder.pos - offset));
+        return _r;
+    }
+
+    private static class Encoder {
+        final Bytes out = new Bytes();
+        final Map<String, Integer> keys = new HashMap<>();
+        boolean shared;
+
+        byte[] encode(JsonNode root, boolean sharedKeys) {
+            shared = sharedKeys;
+            out.write('E');
+            out.write('J');
+            out.write(VERSION);
+            out.write(sharedKeys ? SHARED_KEYS : 0);
+            value(root);
+            return out.toByteArray();
+        }
+
+        void value(JsonNode node) {
+            if (node == null) {
+                out.write(NULL);
+                return;
+            }
+            switch (node.getNodeType()) {
+                case OBJECT:
+                    out.write(OBJECT);
+                    out.varint(node.size());
+                    Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+                    while (fields.hasNext()) {
+                        Map.Entry<String, JsonNode> field = fields.next();
+                        key(field.getKey());
+                        value(field.getValue());
+                    }
+                    return;
+                case ARRAY:
+                    if (node instanceof NumericArrayNode && ((NumericArrayNode) node).kind() != NumericArrayNode.INFLATED) {
+                        numbers((NumericArrayNode) node);
+                        return;
+                    }
+                    out.write(ARRAY);
+                    out.varint(node.size());
+                    for (int i = 0; i < node.size(); i++) value(node.get(i));
+                    return;
+                case STRING:
+                    string(node.textValue());
+                    return;
+                case NUMBER:
+                    number(node);
+                    return;
+                case BOOLEAN:
+                    out.write(node.booleanValue() ? TRUE : FALSE);
+                    return;
+                case BINARY:
+                    out.write(BINARY);
+                    out.bytes(((BinaryNode) node).binaryValue());
+                    return;
+                case POJO:
+                    value(Json.config().mapper().valueToTree(((POJONode) node).getPojo()));
+                    return;
+                default:
+                    out.write(NULL);
+            }
+        }
+
+        void number(JsonNode node) {
+            switch (node.numberType()) {
+                case INT:
+                    int v = node.intValue();
+                    if (v < SMALL_MIN || v > SMALL_MAX) {
+                        out.write(INT);
+                        out.varlong(zigzag(v));
+                    } else {
+                        out.write(SMALL_INT + v - SMALL_MIN);
+                    }
+                    return;
+                case LONG:
+                    out.write(LONG);
+                    out.varlong(zigzag(node.longValue()));
+                    return;
+                case FLOAT:
+                    out.write(FLOAT);
+                    out.int32(Float.floatToIntBits(node.floatValue()));
+                    return;
+                case BIG_INTEGER:
+                    out.write(BIG_INTEGER);
+                    out.bytes(node.bigIntegerValue().toByteArray());
+                    return;
+                case BIG_DECIMAL:
+                    BigDecimal decimal = node.decimalValue();
+                    out.write(BIG_DECIMAL);
+                    out.varlong(zigzag(decimal.scale()));
+                    out.bytes(decimal.unscaledValue().toByteArray());
+                    return;
+                default:
+                    out.write(DOUBLE);
+                    out.int64(Double.doubleToRawLongBits(node.doubleValue()));
+            }
+        }
+
+        void numbers(NumericArrayNode node) {
+            switch (node.kind()) {
+                case NumericArrayNode.INT:
+                    out.write(INTS);
+                    out.varint(node.size());
+                    for (int each : node.toIntArray()) out.varlong(zigzag(each));
+                    return;
+                case NumericArrayNode.LONG:
+                    out.write(LONGS);
+                    out.varint(node.size());
+                    for (long each : node.toLongArray()) out.varlong(zigzag(each));
+                    return;
+                default:
+                    out.write(DOUBLES);
+                    out.varint(node.size());
+                    for (double each : node.toDoubleArray()) out.int64(Double.doubleToRawLongBits(each));
+            }
+        }
+
+        void string(String s) {
+            if (s.length() > SHORT_MAX) {
+                out.write(STRING);
+                out.utf8(s, 0);
+                return;
+            }
+            int at = out.size;
+            /* Optimistic short string, only a non-ASCII one can outgrow it. */
+            out.write(SHORT_STRING);
+            int len = out.ascii(s);
+            if (len < 0) {
+                out.size = at;
+                out.write(STRING);
+                out.utf8(s, 0);
+            } else {
+                out.buffer[at] = (byte) (SHORT_STRING + len);
+            }
+        }
+
+        void key(String k) {
+            if (!shared) {
+                out.utf8(k, 0);
+                return;
+            }
+            Integer index = keys.get(k);
+            if (index != null) {
+                out.varint(index << 1 | 1);
+                return;
+            }
+            int len = out.utf8(k, 1);
+            if (len <= SHARED_KEY_BYTES && keys.size() < MAX_SHARED) keys.put(k, keys.size());
+        }
+    }
+
+    private static class Decoder {
+        final byte[] in;
+        final int start;
+        final int end;
+        int pos;
+        final List<String> keys;
+        final EasyJsonConfig config;
+        final JsonNodeFactory factory;
+        final ParseLimits limits;
+
+        Decoder(EasyJsonConfig config, byte[] in, int offset, int len, boolean sharedKeys) {
+            this.in = in;
+            this.start = offset;
+            this.pos = offset + 4;
+            this.end = offset + len;
+            this.keys = sharedKeys ? new ArrayList<>() : null;
+            this.config = config;
+            this.factory = config.nodeFactory();
+            this.limits = config.limits();
+        }
+
+        /**
+         * The value at pos, the containers filled from the open stack, no recursion.
+         */
+        JsonNode value() {
+            JsonNode _r = null;
+            Deque<Open> open = new ArrayDeque<>();
+            do {
+                Open top = open.peek();
+                String k = top != null && top.object ? key() : null;
+                JsonNode v = one(open);
+                if (top == null) _r = v;
+                else if (top.object) ((ObjectNode) top.node).set(k, v);
+                else ((ArrayNode) top.node).add(v);
+                if (top != null) top.remaining--;
+                while (!open.isEmpty() && open.peek().remaining == 0) open.pop();
+            } while (!open.isEmpty());
+            return _r;
+        }
+
+        /**
+         * The next value, a container is returned empty and pushed to be filled if it has elements.
+         */
+        JsonNode one(Deque<Open> open) {
+            int tag = u8();
+            if (tag >= SHORT_STRING) return factory.textNode(utf8(tag - SHORT_STRING));
+            if (tag >= SMALL_INT) return factory.numberNode(tag - SMALL_INT + SMALL_MIN);
+            switch (tag) {
+                case NULL:        return factory.nullNode();
+                case FALSE:       return factory.booleanNode(false);
+                case TRUE:        return factory.booleanNode(true);
+                case INT:         return factory.numberNode((int) unzigzag(varlong()));
+                case LONG:        return factory.numberNode(unzigzag(varlong()));
+                case DOUBLE:      return factory.numberNode(Double.longBitsToDouble(int64()));
+                case FLOAT:       return factory.numberNode(Float.intBitsToFloat(int32()));
+                case BIG_INTEGER:
+                    if (!limits.bigNumbers()) throw limit("integer beyond long not allowed");
+                    return factory.numberNode(new BigInteger(number()));
+                case BIG_DECIMAL: {
+                    int scale = (int) unzigzag(varlong());
+                    return factory.numberNode(new BigDecimal(new BigInteger(number()), scale));
+                }
+                case STRING:      return factory.textNode(utf8(varint()));
+                case BINARY:      return factory.binaryNode(bytes());
+                case ARRAY: {
+                    int n = count(1);
+                    ArrayNode _r = factory.arrayNode(n);
+                    if (n > 0) push(open, new Open(_r, false, n));
+                    return _r;
+                }
+                case OBJECT: {
+                    int n = count(2);
+                    if (n > limits.maxFields()) throw limit("fields over the limit of " + limits.maxFields());
+                    ObjectNode _r = factory.objectNode();
+                    if (n > 0) push(open, new Open(_r, true, n));
+                    return _r;
+                }
+                case INTS: {
+                    int[] values = new int[count(1)];
+                    for (int i = 0; i < values.length; i++) values[i] = (int) unzigzag(varlong());
+                    NumericArrayNode _r = new NumericArrayNode(factory, NumericArrayNode.INT);
+                    _r.addAll(values, 0, values.length);
+                    return _r;
+                }
+                case LONGS: {
+                    long[] values = new long[count(1)];
+                    for (int i = 0; i < values.length; i++) values[i] = unzigzag(varlong());
+                    /* As a parse reads it, the longs that fit an int come back as IntNode. */
+                    NumericArrayNode _r = new NumericArrayNode(factory, NumericArrayNode.LONG, true);
+                    _r.addAll(values, 0, values.length);
+                    return _r;
+                }
+                case DOUBLES: {
+                    double[] values = new double[count(8)];
+                    for (int i = 0; i < values.length; i++) values[i] = Double.longBitsToDouble(int64());
+                    NumericArrayNode _r = new NumericArrayNode(factory, NumericArrayNode.DOUBLE);
+                    _r.addAll(values, 0, values.length);
+                    return _r;
+                }
+                default:
+                    throw new RuntimeException("Parse binary error! Unknown tag " + tag + " at " + (pos - 1 - start));
+            }
+        }
+
+        /**
+         * Inner using!
+         */
+        void push(Deque<Open> open, Open container) {
+            /* The root is depth 1, as for the JSON parser. */
+            if (open.size() + 1 > limits.maxDepth()) throw limit("depth " + (open.size() + 1) + " over the limit of " + limits.maxDepth());
+            open.push(container);
+        }
+
+        RuntimeException limit(String message) {
+            return new RuntimeException("Parse binary error! Offset : " + (pos - start) + ", Parse limit exceeded, " + message);
+        }
+
+        /**
+         * The two's complement bytes of a big number, about 2.41 digits per byte.
+         */
+        byte[] number() {
+            byte[] _r = bytes();
+            if (_r.length * 2.41 > limits.maxNumberLength()) throw limit("number of about " + (int) (_r.length * 2.41) + " chars over the limit of " + limits.maxNumberLength());
+            return _r;
+        }
+
+        String key() {
+            if (keys == null) return config.key(utf8(varint()));
+            int ref = varint();
+            if ((ref & 1) == 1) {
+                int index = ref >>> 1;
+                if (index >= keys.size()) throw new RuntimeException("Parse binary error! Unknown key reference " + index + " at " + (pos - start));
+                return keys.get(index);
+            }
+            int len = ref >>> 1;
+            String _r = config.key(utf8(len));
+            if (len <= SHARED_KEY_BYTES && keys.size() < MAX_SHARED) keys.add(_r);
+            return _r;
+        }
+
+        /**
+         * Inner using!
+         */
+        int count(int minBytes) {
+            int _r = varint();
+            /* Every element takes at least minBytes, a bigger count is a corrupt or hostile input. */
+            if ((long) _r * minBytes > end - pos) throw new RuntimeException("Parse binary error! Count " + _r + " at " + (pos - start));
+            return _r;
+        }
+
+        int u8() {
+            if (pos >= end) throw new RuntimeException("Parse binary error! Unexpected end.");
+            return in[pos++] & 0xFF;
+        }
+
+        int varint() {
+            long _r = varlong();
+            if (_r < 0 || _r > Integer.MAX_VALUE) throw new RuntimeException("Parse binary error! Length " + _r + " at " + (pos - start));
+            return (int) _r;
+        }
+
+        long varlong() {
+            long _r = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = u8();
+                _r |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return _r;
+            }
+            throw new RuntimeException("Parse binary error! Malformed varint at " + (pos - start));
+        }
+
+        int int32() {
+            need(4);
+            int _r = (in[pos] & 0xFF) << 24 | (in[pos + 1] & 0xFF) << 16 | (in[pos + 2] & 0xFF) << 8 | in[pos + 3] & 0xFF;
+            pos += 4;
+            return _r;
+        }
+
+        long int64() {
+            long hi = int32() & 0xFFFFFFFFL;
+            return hi << 32 | int32() & 0xFFFFFFFFL;
+        }
+
+        byte[] bytes() {
+            int len = varint();
+            need(len);
+            byte[] _r = Arrays.copyOfRange(in, pos, pos + len);
+            pos += len;
+            return _r;
+        }
+
+        String utf8(int len) {
+            need(len);
+            String _r = new String(in, pos, len, StandardCharsets.UTF_8);
+            if (_r.length() > limits.maxStringLength()) throw limit("string of " + _r.length() + " chars over the limit of " + limits.maxStringLength());
+            pos += len;
+            return _r;
+        }
+
+        void need(int len) {
+            if (len < 0 || len > end - pos) throw new RuntimeException("Parse binary error! Unexpected end.");
+        }
+    }
+
+    /**
+     * An open container of the decoder, with the elements still to read.
+     */
+    private static class Open {
+        final JsonNode node;
+        final boolean object;
+        int remaining;
+
+        Open(JsonNode node, boolean object, int remaining) {
+            this.node = node;
+            this.object = object;
+            this.remaining = remaining;
+        }
+    }
+
+    private static long zigzag(long v) { return v << 1 ^ v >> 63; }
+
+    private static long unzigzag(long v) { return v >>> 1 ^ -(v & 1); }
+
+    private static class Bytes {
+        byte[] buffer = new byte[256];
+        int size;
+
+        void write(int b) {
+            if (size == buffer.length) buffer = Arrays.copyOf(buffer, size << 1);
+            buffer[size++] = (byte) b;
+        }
+
+        void raw(byte[] b, int off, int len) {
+            ensure(len);
+            System.arraycopy(b, off, buffer, size, len);
+            size += len;
+        }
+
+        void bytes(byte[] b) {
+            varint(b.length);
+            raw(b, 0, b.length);
+        }
+
+        void varint(int v) { varlong(v & 0xFFFFFFFFL); }
+
+        void varlong(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buffer[size++] = (byte) (v & 0x7F | 0x80);
+                v >>>= 7;
+            }
+            buffer[size++] = (byte) v;
+        }
+
+        void int32(int v) {
+            ensure(4);
+            buffer[size++] = (byte) (v >>> 24);
+            buffer[size++] = (byte) (v >>> 16);
+            buffer[size++] = (byte) (v >>> 8);
+            buffer[size++] = (byte) v;
+        }
+
+        void int64(long v) {
+            int32((int) (v >>> 32));
+            int32((int) v);
+        }
+
+        /**
+         * The chars of an ASCII string, -1 and nothing written if it is not!
+         */
+        int ascii(String s) {
+            int n = s.length();
+            ensure(n);
+            for (int i = 0; i < n; i++) {
+                char c = s.charAt(i);
+                if (c >= 0x80) {
+                    size -= i;
+                    return -1;
+                }
+                buffer[size++] = (byte) c;
+            }
+            return n;
+        }
+
+        /**
+         * Varint of (UTF-8 length << shift) then the UTF-8, the length returned!
+         * Room for the longest possible prefix is kept, the bytes are moved back if the prefix is shorter.
+         */
+        int utf8(String s, int shift) {
+            int reserved = width((long) s.length() * 3 << shift);
+            ensure(reserved);
+            int at = size;
+            size += reserved;
+            int len = ascii(s);
+            if (len < 0) {
+                byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+                raw(utf8, 0, utf8.length);
+                len = utf8.length;
+            }
+            int used = width((long) len << shift);
+            if (used < reserved) System.arraycopy(buffer, at + reserved, buffer, at + used, len);
+            size = at;
+            varlong((long) len << shift);
+            size += len;
+            return len;
+        }
+
+        private static int width(long v) {
+            int _r = 1;
+            while ((v >>>= 7) != 0) _r++;
+            return _r;
+        }
+
+        void ensure(int len) {
+            if (size + len > buffer.length) buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, size + len));
+        }
+
+        byte[] toByteArray() { return Arrays.copyOf(buffer, size); }
+    }
+}
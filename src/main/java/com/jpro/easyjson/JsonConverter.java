@@ -0,0 +1,154 @@
+package com.jpro.easyjson;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plain Java values to JsonNode in one pass, behind Json.parse(Map) and Json.array(Collection)!
+ * Nodes are written straight by the node factory, no Json in between.
+ * The dispatch is resolved once per value class and cached, then it is a single switch.
+ *
+ * Supported: null, CharSequence, Character, Boolean, every Number, Enum (by name),
+ * Map (keys by toString), Collection, arrays (int[]/long[]/double[] become NumericArray),
+ * byte[] (base64, same as Jackson), Json and JsonNode (shared, not copied).
+ * Any other class is bound as a POJO by Jackson.
+ */
+class JsonConverter {
+    private enum Kind {
+        TEXT, CHAR, BOOLEAN, INT, LONG, SHORT, BYTE, DOUBLE, FLOAT, BIG_INTEGER, BIG_DECIMAL, NUMBER,
+        ENUM, MAP, COLLECTION, OBJECTS, INTS, LONGS, DOUBLES, FLOATS, SHORTS, BOOLEANS, CHARS, BYTES,
+        JSON, NODE, POJO
+    }
+
+    private static final ClassValue<Kind> KINDS = new ClassValue<Kind>() {
+        @Override
+        protected Kind computeValue(Class<?> type) { return kind(type); }
+    };
+
+    static ObjectNode object(Map<?, ?> map, JsonNodeFactory f) {
+        EasyJsonConfig config = Json.config();
+        ObjectNode _r = f.objectNode();
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            Object key = entry.getKey();
+            _r.set(config.key(key instanceof String ? (String) key : String.valueOf(key)), node(entry.getValue(), f));
+        }
+        return _r;
+    }
+
+    static ArrayNode array(Collection<?> collection, JsonNodeFactory f) {
+        ArrayNode _r = f.arrayNode(collection.size());
+        if (collection instanceof List && collection instanceof RandomAccess) {
+            List<?> list = (List<?>) collection;
+            for (int i = 0; i < list.size(); i++) _r.add(node(list.get(i), f));
+        } else {
+            for (Object each : collection) _r.add(node(each, f));
+        }
+        return _r;
+    }
+
+    static JsonNode node(Object v, JsonNodeFactory f) {
+        if (v == null) return f.nullNode();
+        switch (KINDS.get(v.getClass())) {
+            case TEXT:        return f.textNode(v.toString());
+            case CHAR:        return f.textNode(String.valueOf((char) (Character) v));
+            case BOOLEAN:     return f.booleanNode((Boolean) v);
+            case INT:         return f.numberNode(((Number) v).intValue());
+            case LONG:        return f.numberNode(((Number) v).longValue());
+            case SHORT:       return f.numberNode((Short) v);
+            case BYTE:        return f.numberNode((Byte) v);
+            case DOUBLE:      return f.numberNode((Double) v);
+            case FLOAT:       return f.numberNode((Float) v);
+            case BIG_INTEGER: return f.numberNode((BigInteger) v);
+            case BIG_DECIMAL: return f.numberNode((BigDecimal) v);
+            case NUMBER:      return f.numberNode(((Number) v).doubleValue());
+            case ENUM:        return f.textNode(((Enum<?>) v).name());
+            case MAP:         return object((Map<?, ?>) v, f);
+            case COLLECTION:  return array((Collection<?>) v, f);
+            case OBJECTS: {
+                Object[] values = (Object[]) v;
+                ArrayNode _r = f.arrayNode(values.length);
+                for (Object each : values) _r.add(node(each, f));
+                return _r;
+            }
+            case INTS: {
+                NumericArrayNode _r = new NumericArrayNode(f, NumericArrayNode.INT);
+                _r.addAll((int[]) v, 0, ((int[]) v).length);
+                return _r;
+            }
+            case LONGS: {
+                NumericArrayNode _r = new NumericArrayNode(f, NumericArrayNode.LONG);
+                _r.addAll((long[]) v, 0, ((long[]) v).length);
+                return _r;
+            }
+            case DOUBLES: {
+                NumericArrayNode _r = new NumericArrayNode(f, NumericArrayNode.DOUBLE);
+                _r.addAll((double[]) v, 0, ((double[]) v).length);
+                return _r;
+            }
+            case FLOATS: {
+                float[] values = (float[]) v;
+                ArrayNode _r = f.arrayNode(values.length);
+                for (float each : values) _r.add(each);
+                return _r;
+            }
+            case SHORTS: {
+                short[] values = (short[]) v;
+                ArrayNode _r = f.arrayNode(values.length);
+                for (short each : values) _r.add(each);
+                return _r;
+            }
+            case BOOLEANS: {
+                boolean[] values = (boolean[]) v;
+                ArrayNode _r = f.arrayNode(values.length);
+                for (boolean each : values) _r.add(each);
+                return _r;
+            }
+            case CHARS:       return f.textNode(new String((char[]) v));
+            case BYTES:       return f.binaryNode((byte[]) v);
+            case JSON:        return ((Json) v).root;
+            case NODE:        return (JsonNode) v;
+            default:          return Json.config().mapper().valueToTree(v);
+        }
+    }
+
+    /**
+     * Inner using! Resolved once per class.
+     */
+    private static Kind kind(Class<?> type) {
+        if (CharSequence.class.isAssignableFrom(type)) return Kind.TEXT;
+        if (type == Character.class)  return Kind.CHAR;
+        if (type == Boolean.class)    return Kind.BOOLEAN;
+        if (type == Integer.class || type == AtomicInteger.class) return Kind.INT;
+        if (type == Long.class || type == AtomicLong.class)       return Kind.LONG;
+        if (type == Short.class)      return Kind.SHORT;
+        if (type == Byte.class)       return Kind.BYTE;
+        if (type == Double.class)     return Kind.DOUBLE;
+        if (type == Float.class)      return Kind.FLOAT;
+        if (BigInteger.class.isAssignableFrom(type)) return Kind.BIG_INTEGER;
+        if (BigDecimal.class.isAssignableFrom(type)) return Kind.BIG_DECIMAL;
+        if (Number.class.isAssignableFrom(type))     return Kind.NUMBER;
+        if (Enum.class.isAssignableFrom(type))       return Kind.ENUM;
+        if (Map.class.isAssignableFrom(type))        return Kind.MAP;
+        if (Collection.class.isAssignableFrom(type)) return Kind.COLLECTION;
+        if (Json.class.isAssignableFrom(type))       return Kind.JSON;
+        if (JsonNode.class.isAssignableFrom(type))   return Kind.NODE;
+        if (type == int[].class)      return Kind.INTS;
+        if (type == long[].class)     return Kind.LONGS;
+        if (type == double[].class)   return Kind.DOUBLES;
+        if (type == float[].class)    return Kind.FLOATS;
+        if (type == short[].class)    return Kind.SHORTS;
+        if (type == boolean[].class)  return Kind.BOOLEANS;
+        if (type == char[].class)     return Kind.CHARS;
+        if (type == byte[].class)     return Kind.BYTES;
+        if (type.isArray())           return Kind.OBJECTS;
+        return Kind.POJO;
+    }
+}
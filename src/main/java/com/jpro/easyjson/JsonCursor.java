@@ -0,0 +1,199 @@
+package com.jpro.easyjson;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Pull cursor over a JSON stream, created by Json::stream() methods!
+ * No JsonNode tree is built, unless you ask for it by read()!
+ * Unwanted subtrees are skipped token by token.
+ *
+ * Usage:
+ *   try (JsonCursor cursor = Json.stream(bytes)) {
+ *       cursor.enter();
+ *       while (cursor.nextField()) {
+ *           if ("id".equals(cursor.field())) id = cursor.value();
+ *       }
+ *   }
+ */
+public class JsonCursor implements Closeable {
+    private final JsonParser parser;
+
+    /**
+     * A value was positioned by nextField()/nextElement(),
+     * but not yet consumed by enter(), read(), value() or skip().
+     */
+    private boolean pending;
+
+    JsonCursor(JsonParser parser) { this.parser = parser; }
+
+    /**
+     * Current token, null before the first token and at the end of input!
+     */
+    public JsonToken token() { return parser.currentToken(); }
+
+    /**
+     * Name of the field holding the current value!
+     */
+    public String field() {
+        try {
+            return parser.currentName();
+        } catch (IOException e) {
+            throw new RuntimeException("Stream json error!");
+        }
+    }
+
+    /**
+     * Step into the current object or array (the root one at the beginning)!
+     */
+    public JsonCursor enter() {
+        JsonToken token = current();
+        if (token != JsonToken.START_OBJECT && token != JsonToken.START_ARRAY)
+            throw new RuntimeException("Json access error! Not a container : " + token);
+        pending = false;
+        return this;
+    }
+
+    /**
+     * Move to the value of the next field of the entered object.
+     * The previous value is skipped, if you haven't consumed it!
+     * Returns false at the end of the object.
+     */
+    public boolean nextField() {
+        JsonToken token = advance();
+        if (token == JsonToken.END_OBJECT) return false;
+        if (token != JsonToken.FIELD_NAME) throw new RuntimeException("Json access error! Not in object : " + token);
+        advance();
+        pending = true;
+        return true;
+    }
+
+    /**
+     * Move to the next element of the entered array.
+     * Returns false at the end of the array.
+     */
+    public boolean nextElement() {
+        JsonToken token = advance();
+        if (token == JsonToken.END_ARRAY) return false;
+        if (token == null || token == JsonToken.FIELD_NAME || token == JsonToken.END_OBJECT)
+            throw new RuntimeException("Json access error! Not in array : " + token);
+        pending = true;
+        return true;
+    }
+
+    /**
+     * Descend by the passing keys, same semantics as Json::get(String...)!
+     * Every sibling on the way is skipped without being built.
+     * Returns false if some key is missing, the cursor is then left at the end of that object.
+     */
+    public boolean find(String... keys) {
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0 && current() != JsonToken.START_OBJECT) throw new RuntimeException("Json access error!");
+            enter();
+            boolean found = false;
+            while (nextField()) {
+                if (keys[i].equals(field())) { found = true; break; }
+            }
+            if (!found) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Skip the current value, the whole subtree if it is a container!
+     */
+    public JsonCursor skip() {
+        try {
+            current();
+            parser.skipChildren();
+            pending = false;
+            return this;
+        } catch (IOException e) {
+            throw new RuntimeException("Stream json error!");
+        }
+    }
+
+    /**
+     * Build the current value only!
+     */
+    public Json read() {
+        try {
+            current();
+            JsonNode node = parser.readValueAsTree();
+            pending = false;
+            return new Json(node);
+        } catch (IOException e) {
+            throw new RuntimeException("Parse json error!");
+        }
+    }
+
+    /**
+     * The raw value of the current token, containers are built as Json!
+     */
+    public Object value() {
+        try {
+            JsonToken token = current();
+            Object _r;
+            switch (token) {
+                case START_OBJECT:
+                case START_ARRAY:        return read();
+                case VALUE_STRING:       _r = parser.getText(); break;
+                case VALUE_NUMBER_INT:   _r = parser.getNumberValue(); break;
+                case VALUE_NUMBER_FLOAT: _r = parser.getDoubleValue(); break;
+                case VALUE_TRUE:         _r = true; break;
+                case VALUE_FALSE:        _r = false; break;
+                case VALUE_NULL:         _r = null; break;
+                default: throw new RuntimeException("Json access error! Not a value : " + token);
+            }
+            pending = false;
+            return _r;
+        } catch (IOException e) {
+            throw new RuntimeException("Stream json error!");
+        }
+    }
+
+    /**
+     * Inner using! For the readers built on top of the cursor.
+     */
+    JsonParser parser() { return parser; }
+
+    @Override
+    public void close() {
+        try {
+            parser.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Stream json error!");
+        }
+    }
+
+    /**
+     * Inner using! Read the first token lazily.
+     */
+    private JsonToken current() {
+        try {
+            JsonToken token = parser.currentToken();
+            if (token == null) token = parser.nextToken();
+            if (token == null) throw new RuntimeException("Stream json error! End of input.");
+            return token;
+        } catch (IOException e) {
+            throw new RuntimeException("Stream json error!");
+        }
+    }
+
+    /**
+     * Inner using! Drop the unconsumed value, then go to the next token.
+     */
+    private JsonToken advance() {
+        try {
+            if (pending) parser.skipChildren();
+            pending = false;
+            return parser.nextToken();
+        } catch (IOException e) {
+            throw new RuntimeException("Stream json error!");
+        }
+    }
+}
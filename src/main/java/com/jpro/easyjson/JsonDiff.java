@@ -0,0 +1,223 @@
+package com.jpro.easyjson;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeType;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Structural diff engine behind Json.diff() and Json::equal()!
+ * One pass over both trees, nothing is serialized.
+ * Numbers are compared by value, so 1 and 1L are equal.
+ */
+class JsonDiff {
+    /**
+     * RFC 6902 operations, null in template mode.
+     */
+    private final ArrayNode patch;
+
+    /**
+     * Template mode of Json::equal(): only the fields of the target are checked,
+     * arrays are compared as a whole, and the first violation stops the walk.
+     */
+    private final boolean template;
+
+    /*
+     * The first violation in template mode.
+     */
+    String op;
+    String path;
+    JsonNode source;
+    JsonNode target;
+
+    private JsonDiff(ArrayNode patch, boolean template) {
+        this.patch = patch;
+        this.template = template;
+    }
+
+    /**
+     * The JSON Patch turning a into b, values are copied from b!
+     */
+    static ArrayNode diff(JsonNode a, JsonNode b) {
+        JsonDiff diff = new JsonDiff(Json.config().nodeFactory().arrayNode(), false);
+        diff.walk(new StringBuilder(), a, b);
+        return diff.patch;
+    }
+
+    /**
+     * The first violation of the template in the json, null if none!
+     */
+    static JsonDiff check(JsonNode json, JsonNode template) {
+        JsonDiff diff = new JsonDiff(null, true);
+        diff.walk(new StringBuilder(), json, template);
+        return diff.op == null ? null : diff;
+    }
+
+    /**
+     * Deep equality, stops at the first difference!
+     * A level of LEVEL children or more is hashed first, shallow, so a difference among
+     * the children is found before any subtree is walked.
+     */
+    static boolean same(JsonNode a, JsonNode b) {
+        if (a == b) return true;
+        if (a == null || b == null) return false;
+        if (a.isNumber() && b.isNumber()) return sameNumber(a, b);
+        if (a.getNodeType() != b.getNodeType() || a.size() != b.size()) return false;
+        if (a.size() >= LEVEL && level(a) != level(b)) return false;
+        if (a.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = a.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (!same(field.getValue(), b.get(field.getKey()))) return false;
+            }
+            return true;
+        }
+        if (a.isArray()) {
+            for (int i = 0; i < a.size(); i++) {
+                if (!same(a.get(i), b.get(i))) return false;
+            }
+            return true;
+        }
+        return a.equals(b);
+    }
+
+    private static final int LEVEL = 8;
+
+    /**
+     * Inner using! Hash of the children, each by shallow(). Objects regardless of the field order.
+     */
+    private static int level(JsonNode node) {
+        int _r = 1;
+        if (node.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                _r += field.getKey().hashCode() ^ shallow(field.getValue());
+            }
+        } else {
+            for (int i = 0; i < node.size(); i++) _r = 31 * _r + shallow(node.get(i));
+        }
+        return _r;
+    }
+
+    /**
+     * Inner using! Same for the nodes same() finds equal: numbers by their double value,
+     * containers by type and size only.
+     */
+    private static int shallow(JsonNode node) {
+        if (node.isNumber()) {
+            double d = node.doubleValue();
+            return d == 0 ? 0 : Double.hashCode(d);
+        }
+        if (node.isContainerNode()) return node.getNodeType().ordinal() * 31 + node.size();
+        return node.hashCode();
+    }
+
+    private static boolean sameNumber(JsonNode a, JsonNode b) {
+        if (a.isIntegralNumber() && b.isIntegralNumber()) {
+            if (a.canConvertToLong() && b.canConvertToLong()) return a.longValue() == b.longValue();
+            return a.bigIntegerValue().equals(b.bigIntegerValue());
+        }
+        if (a.isBigDecimal() || b.isBigDecimal() || a.isBigInteger() || b.isBigInteger())
+            return a.decimalValue().compareTo(b.decimalValue()) == 0;
+        return a.doubleValue() == b.doubleValue();
+    }
+
+    /**
+     * Returns false once the walk has to stop.
+     */
+    private boolean walk(StringBuilder at, JsonNode a, JsonNode b) {
+        if (a.isObject() && b.isObject()) {
+            int mark = at.length();
+            if (!template) {
+                Iterator<String> keys = a.fieldNames();
+                while (keys.hasNext()) {
+                    String key = keys.next();
+                    if (!b.has(key)) emit("remove", append(at, key), a.get(key), null);
+                    at.setLength(mark);
+                }
+            }
+            Iterator<Map.Entry<String, JsonNode>> fields = b.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                JsonNode av = a.get(field.getKey());
+                append(at, field.getKey());
+                boolean going = av == null
+                        ? emit("add", at, null, field.getValue())
+                        : walk(at, av, field.getValue());
+                at.setLength(mark);
+                if (!going) return false;
+            }
+            return true;
+        }
+        if (a.isArray() && b.isArray() && !template) {
+            int mark = at.length();
+            int common = Math.min(a.size(), b.size());
+            for (int i = 0; i < common; i++) {
+                walk(at.append('/').append(i), a.get(i), b.get(i));
+                at.setLength(mark);
+            }
+            for (int i = common; i < b.size(); i++) {
+                emit("add", at.append('/').append(i), null, b.get(i));
+                at.setLength(mark);
+            }
+            /* From the end, so the indexes stay valid. */
+            for (int i = a.size() - 1; i >= common; i--) {
+                emit("remove", at.append('/').append(i), a.get(i), null);
+                at.setLength(mark);
+            }
+            return true;
+        }
+        if (same(a, b)) return true;
+        return emit("replace", at, a, b);
+    }
+
+    private boolean emit(String op, CharSequence at, JsonNode from, JsonNode value) {
+        if (template) {
+            this.op = op;
+            this.path = at.toString();
+            this.source = from;
+            this.target = value;
+            return false;
+        }
+        ObjectNode operation = patch.addObject();
+        operation.put("op", op);
+        operation.put("path", at.toString());
+        if (value != null) operation.set("value", value.deepCopy());
+        return true;
+    }
+
+    /**
+     * Inner using! JSON Pointer escaping, RFC 6901.
+     */
+    private static StringBuilder append(StringBuilder at, String key) {
+        at.append('/');
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c == '~') at.append("~0");
+            else if (c == '/') at.append("~1");
+            else at.append(c);
+        }
+        return at;
+    }
+
+    /**
+     * One letter type tag of the node, for the messages of Json::equal()!
+     */
+    static char tag(JsonNode node) {
+        if (node == null) return 'N';
+        JsonNodeType type = node.getNodeType();
+        switch (type) {
+            case OBJECT:  return 'O';
+            case ARRAY:   return 'A';
+            case STRING:  return 'S';
+            case BOOLEAN: return 'B';
+            case NULL:    return 'N';
+            case NUMBER:  return node.isInt() ? 'I' : node.isLong() ? 'L' : 'D';
+            default:      return '?';
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.jpro.easyjson;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * NDJSON / JSON Lines reader, one Json record at a time!
+ * Records are parsed by one streaming parser over the bytes,
+ * no String per line. Blank lines are skipped.
+ *
+ * Usage:
+ *   try (JsonLines lines = JsonLines.open(path)) {
+ *       for (Json record : lines) ...
+ *       // or lines.forEachBatch(1000, batch -> ...)
+ *   }
+ *
+ * Every record is reported to EasyJsonMetrics as a parse, with its bytes.
+ * The ParseLimits apply per record, maxDocumentBytes to the bytes of each line.
+ * Big files are parsed in parallel by JsonLines.parallel(), see below.
+ * The matching writer is JsonLines.Writer.
+ */
+public class JsonLines implements Iterable<Json>, Iterator<Json>, Closeable {
+    /**
+     * Default chunk size of the parallel mode, every chunk ends at a newline.
+     */
+    public static final long CHUNK = 64L << 20;
+
+    private final EasyJsonConfig config;
+    private final JsonParser parser;
+    private final MappingIterator<JsonNode> records;
+
+    private JsonLines(InputStream in) {
+        config = Json.config();
+        try {
+            parser = Json.limit(config, config.reader().createParser(LimitedJsonParser.lines(in, config.limits())));
+            records = config.reader().forType(JsonNode.class).readValues(parser);
+        } catch (IOException e) {
+            throw Json.error(e);
+        }
+    }
+
+    /**
+     * Read records from the stream, closing the JsonLines closes the stream!
+     */
+    public static JsonLines open(InputStream in) { return new JsonLines(in); }
+
+    public static JsonLines open(Path path) {
+        try {
+            return new JsonLines(Files.newInputStream(path));
+        } catch (IOException e) {
+            throw new RuntimeException("Open json lines error! " + path);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        long start = Json.start(config);
+        try {
+            return records.hasNextValue();
+        } catch (IOException e) {
+            throw Json.failed(config, EasyJsonMetrics.Operation.PARSE, start, -1, Json.error(e));
+        }
+    }
+
+    @Override
+    public Json next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        long start = Json.start(config);
+        long from = records.getParser().getTokenLocation().getByteOffset();
+        try {
+            JsonNode _r = records.nextValue();
+            Json.record(config, EasyJsonMetrics.Operation.PARSE, start, size(from), _r);
+            return new Json(_r);
+        } catch (IOException e) {
+            throw Json.failed(config, EasyJsonMetrics.Operation.PARSE, start, size(from), Json.error(e));
+        }
+    }
+
+    /**
+     * Inner using! Bytes of the record from the passing offset, -1 if not known.
+     */
+    private long size(long from) {
+        long to = records.getParser().getCurrentLocation().getByteOffset();
+        return from < 0 || to < 0 ? -1 : to - from;
+    }
+
+    /**
+     * Up to n next records, empty at the end!
+     */
+    public List<Json> next(int n) {
+        List<Json> _r = new ArrayList<>(n);
+        while (_r.size() < n && hasNext()) _r.add(next());
+        return _r;
+    }
+
+    /**
+     * Consume the rest by batches of n records!
+     */
+    public void forEachBatch(int n, Consumer<List<Json>> action) {
+        for (List<Json> batch = next(n); !batch.isEmpty(); batch = next(n)) action.accept(batch);
+    }
+
+    @Override
+    public Iterator<Json> iterator() { return this; }
+
+    @Override
+    public void close() {
+        try {
+            records.close();
+            parser.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Close json lines error!");
+        }
+    }
+
+    /**
+     * Parse the whole file in parallel on the common pool!
+     */
+    public static void parallel(Path path, Consumer<Json> action) { parallel(path, ForkJoinPool.commonPool(), CHUNK, action); }
+
+    /**
+     * Parse the whole file in parallel!
+     * The file is split into chunks of about the passing bytes on newline boundaries,
+     * each chunk is mapped into memory and parsed by one task of the pool.
+     * The action is called concurrently and out of order, make it thread safe.
+     */
+    public static void parallel(Path path, ForkJoinPool pool, long chunkSize, Consumer<Json> action) {
+        if (chunkSize <= 0 || chunkSize > Integer.MAX_VALUE) throw new RuntimeException("Chunk size error! " + chunkSize);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            long size = channel.size(), begin = 0;
+            while (begin < size) {
+                long end = boundary(channel, Math.min(begin + chunkSize, size));
+                ByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, begin, end - begin);
+                tasks.add(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        try (JsonLines lines = open(new ByteBufferBackedInputStream(chunk))) {
+                            lines.forEachRemaining(action);
+                        }
+                    }
+                });
+                begin = end;
+            }
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() { invokeAll(tasks); }
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("Open json lines error! " + path);
+        }
+    }
+
+    /**
+     * Inner using! The position after the first newline from the passing one.
+     */
+    private static long boundary(FileChannel channel, long position) throws IOException {
+        long size = channel.size();
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (position < size) {
+            buffer.clear();
+            int n = channel.read(buffer, position);
+            for (int i = 0; i < n; i++) {
+                if (buffer.get(i) == '\n') return position + i + 1;
+            }
+            position += n;
+        }
+        return size;
+    }
+
+    /**
+     * NDJSON / JSON Lines writer, same text as Json::dumps() plus '\n' per record!
+     * Written by JsonWriter.COMPACT, never indented whatever the config, a record is one line.
+     * Output is buffered, flush() or close() at the end, closing the writer closes the stream.
+     */
+    public static class Writer implements Flushable, Closeable {
+        private final EasyJsonConfig config;
+        private final JsonGenerator generator;
+
+        public Writer(OutputStream out) {
+            config = Json.config();
+            try {
+                /* From the factory, an ObjectWriter would bring INDENT_OUTPUT along. */
+                generator = config.mapper().getFactory().createGenerator(new BufferedOutputStream(out, 1 << 16), JsonEncoding.UTF8)
+                        .enable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            } catch (IOException e) {
+                throw new RuntimeException("Dump json error!");
+            }
+            generator.setRootValueSeparator(null);
+        }
+
+        public static Writer open(Path path) {
+            try {
+                return new Writer(Files.newOutputStream(path));
+            } catch (IOException e) {
+                throw new RuntimeException("Open json lines error! " + path);
+            }
+        }
+
+        /**
+         * Reported to EasyJsonMetrics as a dump, size unknown: the bytes may still be in the buffer!
+         */
+        public Writer write(Json record) {
+            long start = Json.start(config);
+            try {
+                JsonWriter.COMPACT.write(generator, record.root);
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                throw Json.failed(config, EasyJsonMetrics.Operation.DUMP, start, -1, new RuntimeException("Dump json error!"));
+            }
+            Json.record(config, EasyJsonMetrics.Operation.DUMP, start, -1, record.root);
+            return this;
+        }
+
+        public Writer writeAll(Iterable<? extends Json> records) {
+            for (Json record : records) write(record);
+            return this;
+        }
+
+        @Override
+        public void flush() {
+            try {
+                generator.flush();
+            } catch (IOException e) {
+                throw new RuntimeException("Dump json error!");
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                generator.close();
+            } catch (IOException e) {
+                throw new RuntimeException("Dump json error!");
+            }
+        }
+    }
+}
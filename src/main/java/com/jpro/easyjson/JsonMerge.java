@@ -0,0 +1,158 @@
+package com.jpro.easyjson;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.*;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Deep merge engine behind Json::deepMerge() and PersistentJson::deepMerge()!
+ * Neither source is modified: the containers on a changed path are copied,
+ * anything unchanged is returned as it is, so untouched subtrees are shared.
+ */
+class JsonMerge {
+    private final MergePolicy policy;
+    private final JsonNodeFactory factory;
+
+    /**
+     * Copy the containers taken from the other side, or share them.
+     */
+    private final boolean copy;
+
+    private JsonMerge(MergePolicy policy, boolean copy) {
+        this.policy = policy;
+        this.factory = Json.config().nodeFactory();
+        this.copy = copy;
+    }
+
+    static JsonNode merge(JsonNode a, JsonNode b, MergePolicy policy, boolean copy) {
+        JsonMerge merge = new JsonMerge(policy, copy);
+        MergePolicy.Rule rule = policy.rules();
+        if (policy.pool() != null && a != null && a.isObject() && b.isObject() && b.size() >= policy.threshold())
+            return merge.parallel(a, b, rule);
+        return merge.merge(a, b, rule);
+    }
+
+    private JsonNode merge(JsonNode a, JsonNode b, MergePolicy.Rule rule) {
+        if (a == b) return a;
+        if (a == null) return take(b);
+        if (a.isObject() && b.isObject()) return object(a, b, rule);
+        if (a.isArray() && b.isArray()) return array(a, b, rule);
+        if (!b.isContainerNode() && b.equals(a)) return a;
+        return take(b);
+    }
+
+    private JsonNode object(JsonNode a, JsonNode b, MergePolicy.Rule rule) {
+        ObjectNode _r = null;
+        Iterator<Map.Entry<String, JsonNode>> fields = b.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode av = a.get(field.getKey());
+            JsonNode merged = merge(av, field.getValue(), child(rule, field.getKey()));
+            if (merged == av) continue;
+            if (_r == null) _r = copy(a);
+            _r.set(field.getKey(), merged);
+        }
+        return _r == null ? a : _r;
+    }
+
+    private JsonNode array(JsonNode a, JsonNode b, MergePolicy.Rule rule) {
+        switch (policy.strategy(rule)) {
+            case CONCAT: {
+                if (b.size() == 0) return a;
+                ArrayNode _r = factory.arrayNode(a.size() + b.size());
+                /* Element by element, ArrayNode::addAll() sees a compact array as empty. */
+                for (JsonNode each : a) _r.add(each);
+                for (JsonNode each : b) _r.add(take(each));
+                return _r;
+            }
+            case MERGE_BY_KEY: {
+                String key = rule.key;
+                Map<JsonNode, Integer> index = new HashMap<>();
+                for (int i = 0; i < a.size(); i++) {
+                    JsonNode id = a.get(i).get(key);
+                    if (id != null) index.putIfAbsent(id, i);
+                }
+                ArrayNode _r = null;
+                for (JsonNode each : b) {
+                    JsonNode id = each.get(key);
+                    Integer at = id == null ? null : index.get(id);
+                    JsonNode merged = at == null ? null : merge(a.get(at), each, rule);
+                    if (at != null && merged == a.get(at)) continue;
+                    if (_r == null) {
+                        _r = factory.arrayNode(a.size() + b.size());
+                        for (JsonNode e : a) _r.add(e);
+                    }
+                    if (at == null) _r.add(take(each));
+                    else _r.set(at, merged);
+                }
+                return _r == null ? a : _r;
+            }
+            default:
+                /* Equal arrays keep the old one, so the path above stays shared. */
+                return b.equals(a) ? a : take(b);
+        }
+    }
+
+    /**
+     * The top level fields of b, merged as tasks of the pool.
+     */
+    private JsonNode parallel(JsonNode a, JsonNode b, MergePolicy.Rule rule) {
+        List<String> names = new ArrayList<>(b.size());
+        b.fieldNames().forEachRemaining(names::add);
+        JsonNode[] merged = new JsonNode[names.size()];
+        List<RecursiveAction> tasks = new ArrayList<>();
+        for (int i = 0; i < merged.length; i++) {
+            int k = i;
+            JsonNode av = a.get(names.get(k)), bv = b.get(names.get(k));
+            if (av == null || !av.isContainerNode() || !bv.isContainerNode()) {
+                merged[k] = merge(av, bv, child(rule, names.get(k)));
+                continue;
+            }
+            tasks.add(new RecursiveAction() {
+                @Override
+                protected void compute() { merged[k] = merge(av, bv, child(rule, names.get(k))); }
+            });
+        }
+        policy.pool().invoke(new RecursiveAction() {
+            @Override
+            protected void compute() { invokeAll(tasks); }
+        });
+        ObjectNode _r = null;
+        for (int i = 0; i < merged.length; i++) {
+            if (merged[i] == a.get(names.get(i))) continue;
+            if (_r == null) _r = copy(a);
+            _r.set(names.get(i), merged[i]);
+        }
+        return _r == null ? a : _r;
+    }
+
+    /**
+     * Inner using! New top level container of the same fields or elements, nested ones shared.
+     */
+    static JsonNode fresh(JsonNode node) {
+        if (node instanceof NumericArrayNode) return node.deepCopy();
+        JsonNodeFactory factory = Json.config().nodeFactory();
+        if (node.isObject()) return factory.objectNode().setAll((ObjectNode) node);
+        if (!node.isArray()) return node;
+        ArrayNode _r = factory.arrayNode(node.size());
+        for (JsonNode each : node) _r.add(each);
+        return _r;
+    }
+
+    /**
+     * Inner using!
+     */
+    private JsonNode take(JsonNode b) { return copy && b.isContainerNode() ? b.deepCopy() : b; }
+
+    private ObjectNode copy(JsonNode object) {
+        ObjectNode _r = factory.objectNode();
+        _r.setAll((ObjectNode) object);
+        return _r;
+    }
+
+    private static MergePolicy.Rule child(MergePolicy.Rule rule, String key) { return rule == null ? null : rule.child(key); }
+}
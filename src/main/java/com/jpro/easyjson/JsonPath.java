@@ -0,0 +1,201 @@
+package com.jpro.easyjson;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Precompiled set of paths, extracted in one pass over the raw JSON!
+ * Only the values on the paths are built, the rest is skipped token by token.
+ * Paths look like "a.b" or "c[3].d", field names joined by dots, array indexes in brackets.
+ *
+ * Usage:
+ *   static final JsonPath PATHS = JsonPath.compile("id", "profile.address.street");
+ *   List<Json> values = PATHS.extract(bytes);
+ *
+ * The result has one Json per compiled path, in the same order.
+ * Same as Json::get(String...), a missing value is a Json with null root,
+ * and passing through a value of the wrong type is an access error.
+ * A compiled JsonPath is immutable, share it between threads freely.
+ */
+public class JsonPath {
+    private final String[] paths;
+
+    private final Node top = new Node();
+
+    /**
+     * Count of distinct paths.
+     */
+    private int targets;
+
+    private JsonPath(String... paths) {
+        this.paths = paths.clone();
+        for (int i = 0; i < paths.length; i++) {
+            Node node = top;
+            for (Object segment : split(paths[i])) node = node.child(segment);
+            if (node.outputs.isEmpty()) targets++;
+            node.outputs.add(i);
+        }
+        top.count();
+    }
+
+    public static JsonPath compile(String... paths) { return new JsonPath(paths); }
+
+    public List<String> paths() { return Collections.unmodifiableList(Arrays.asList(paths)); }
+
+    public List<Json> extract(byte[] json) {
+        try (JsonCursor cursor = Json.stream(json)) {
+            return extract(cursor.parser());
+        }
+    }
+
+    public List<Json> extract(String json) { return extract(json.getBytes(StandardCharsets.UTF_8)); }
+
+    public List<Json> extract(InputStream in) {
+        try (JsonCursor cursor = Json.stream(in)) {
+            return extract(cursor.parser());
+        }
+    }
+
+    private List<Json> extract(JsonParser parser) {
+        Json[] out = new Json[paths.length];
+        try {
+            if (parser.nextToken() == null) throw new RuntimeException("Parse json error!");
+            new Scan(parser, out).walk(top);
+        } catch (IOException e) {
+            throw new RuntimeException("Parse json error!");
+        }
+        for (int i = 0; i < out.length; i++) {
+            if (out[i] == null) out[i] = new Json((JsonNode) null);
+        }
+        return Arrays.asList(out);
+    }
+
+    /**
+     * Inner using! "c[3].d" to ["c", 3, "d"].
+     */
+    private static List<Object> split(String path) {
+        List<Object> _r = new ArrayList<>();
+        int i = 0, n = path.length();
+        while (i < n) {
+            char c = path.charAt(i);
+            if (c == '.') {
+                i++;
+            } else if (c == '[') {
+                int end = path.indexOf(']', i);
+                if (end < 0) throw new RuntimeException("Path error! " + path);
+                try {
+                    _r.add(Integer.parseInt(path.substring(i + 1, end)));
+                } catch (NumberFormatException e) {
+                    throw new RuntimeException("Path error! " + path);
+                }
+                i = end + 1;
+            } else {
+                int end = i;
+                while (end < n && path.charAt(end) != '.' && path.charAt(end) != '[') end++;
+                _r.add(path.substring(i, end));
+                i = end;
+            }
+        }
+        if (_r.isEmpty()) throw new RuntimeException("Path error! " + path);
+        return _r;
+    }
+
+    /**
+     * Path trie, children by field name or by array index.
+     */
+    private static class Node {
+        final Map<String, Node> fields = new HashMap<>();
+        final Map<Integer, Node> indexes = new HashMap<>();
+        final List<Integer> outputs = new ArrayList<>(1);
+        /** Distinct paths ending here or below. */
+        int count;
+
+        Node child(Object segment) {
+            if (segment instanceof Integer)
+                return indexes.computeIfAbsent((Integer) segment, k -> new Node());
+            return fields.computeIfAbsent((String) segment, k -> new Node());
+        }
+
+        int count() {
+            count = outputs.isEmpty() ? 0 : 1;
+            for (Node node : fields.values()) count += node.count();
+            for (Node node : indexes.values()) count += node.count();
+            return count;
+        }
+    }
+
+    /**
+     * One extraction, stops reading as soon as every path is resolved.
+     */
+    private class Scan {
+        final JsonParser parser;
+        final Json[] out;
+        int remaining = targets;
+
+        Scan(JsonParser parser, Json[] out) {
+            this.parser = parser;
+            this.out = out;
+        }
+
+        /**
+         * The parser is on the first token of the value matching the node.
+         */
+        void walk(Node node) throws IOException {
+            if (!node.outputs.isEmpty()) {
+                JsonNode value = parser.readValueAsTree();
+                resolve(value, node);
+                remaining -= node.count;
+                return;
+            }
+            int before = remaining;
+            JsonToken token = parser.currentToken();
+            if (token == JsonToken.START_OBJECT && !node.fields.isEmpty()) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    Node child = node.fields.get(parser.currentName());
+                    parser.nextToken();
+                    if (child == null) {
+                        parser.skipChildren();
+                    } else {
+                        walk(child);
+                        if (remaining == 0) return;
+                    }
+                }
+            } else if (token == JsonToken.START_ARRAY && !node.indexes.isEmpty()) {
+                int index = 0;
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    Node child = node.indexes.get(index++);
+                    if (child == null) {
+                        parser.skipChildren();
+                    } else {
+                        walk(child);
+                        if (remaining == 0) return;
+                    }
+                }
+            } else {
+                throw new RuntimeException("Json access error!");
+            }
+            /* Whatever is still missing below this value will never show up. */
+            remaining = before - node.count;
+        }
+
+        /**
+         * Paths below an already built value are read from the tree.
+         */
+        void resolve(JsonNode value, Node node) {
+            for (int i : node.outputs) out[i] = new Json(value);
+            if (value == null) return;
+            if (!value.isContainerNode() && (!node.fields.isEmpty() || !node.indexes.isEmpty()))
+                throw new RuntimeException("Json access error!");
+            for (Map.Entry<String, Node> entry : node.fields.entrySet())
+                resolve(value.get(entry.getKey()), entry.getValue());
+            for (Map.Entry<Integer, Node> entry : node.indexes.entrySet())
+                resolve(value.get(entry.getKey()), entry.getValue());
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.jpro.easyjson;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * Compiled validator, the reusable form of Json::check()!
+ * Compile the template once, then validate every request against it:
+ * one lookup per field, no Json wrapper, all violations reported.
+ * A compiled JsonSchema is immutable, share it between threads freely.
+ *
+ * Two sources:
+ *   JsonSchema.compile(template)      same rules as Json::check(): every field of the
+ *                                     template is required, with the same JSON type.
+ *   JsonSchema.compileSchema(schema)  a JSON Schema subset: type, properties, required,
+ *                                     items and additionalProperties (false).
+ *
+ * Violations are "No <path>", "Error Type of <path>" and "Unknown <path>",
+ * paths are written like JsonPath, e.g. "items[3].sku".
+ */
+public class JsonSchema {
+    private static final int OBJECT = 1, ARRAY = 2, STRING = 4, NUMBER = 8, INTEGER = 16, BOOLEAN = 32, NULL = 64;
+    private static final int ANY = OBJECT | ARRAY | STRING | NUMBER | INTEGER | BOOLEAN | NULL;
+
+    private final Node top;
+
+    private JsonSchema(Node top) { this.top = top; }
+
+    /**
+     * Compile the check() template!
+     */
+    public static JsonSchema compile(Json template) { return new JsonSchema(template(template.root)); }
+
+    /**
+     * Compile the JSON Schema subset!
+     */
+    public static JsonSchema compileSchema(Json schema) { return new JsonSchema(schema(schema.root)); }
+
+    /**
+     * All violations, empty if valid!
+     */
+    public List<String> validate(Json json) {
+        Report report = new Report(Integer.MAX_VALUE);
+        walk(top, json.root, new StringBuilder(), report);
+        return report.violations;
+    }
+
+    /**
+     * Stops at the first violation!
+     */
+    public boolean isValid(Json json) {
+        Report report = new Report(1);
+        walk(top, json.root, new StringBuilder(), report);
+        return report.violations.isEmpty();
+    }
+
+    /**
+     * Validate straight from the token stream, no tree is built!
+     */
+    public List<String> validate(byte[] json) {
+        try (JsonCursor cursor = Json.stream(json)) {
+            return validate(cursor);
+        }
+    }
+
+    public List<String> validate(InputStream in) {
+        try (JsonCursor cursor = Json.stream(in)) {
+            return validate(cursor);
+        }
+    }
+
+    /**
+     * Validate the current value of the cursor, the value is consumed!
+     */
+    public List<String> validate(JsonCursor cursor) {
+        Report report = new Report(Integer.MAX_VALUE);
+        JsonParser parser = cursor.parser();
+        try {
+            if (parser.currentToken() == null && parser.nextToken() == null)
+                throw new RuntimeException("Parse json error!");
+            stream(top, parser, new StringBuilder(), report);
+        } catch (IOException e) {
+            throw new RuntimeException("Parse json error!");
+        }
+        return report.violations;
+    }
+
+    /**
+     * Compiled node, one per template level.
+     */
+    private static class Node {
+        final int types;
+        final String[] names;
+        final Node[] fields;
+        final boolean[] required;
+        final Map<String, Integer> index;
+        final Node items;
+        final boolean closed;
+
+        Node(int types, List<String> names, List<Node> fields, List<Boolean> required, Node items, boolean closed) {
+            this.types = types;
+            this.names = names.toArray(new String[0]);
+            this.fields = fields.toArray(new Node[0]);
+            this.required = new boolean[required.size()];
+            this.index = new HashMap<>();
+            for (int i = 0; i < this.names.length; i++) {
+                this.required[i] = required.get(i);
+                this.index.put(this.names[i], i);
+            }
+            this.items = items;
+            this.closed = closed;
+        }
+    }
+
+    private static final List<String> NONE = Collections.emptyList();
+
+    private static Node template(JsonNode template) {
+        if (template.isObject()) {
+            List<String> names = new ArrayList<>();
+            List<Node> fields = new ArrayList<>();
+            List<Boolean> required = new ArrayList<>();
+            Iterator<Map.Entry<String, JsonNode>> it = template.fields();
+            while (it.hasNext()) {
+                Map.Entry<String, JsonNode> field = it.next();
+                names.add(field.getKey());
+                fields.add(template(field.getValue()));
+                required.add(true);
+            }
+            return new Node(OBJECT, names, fields, required, null, false);
+        }
+        int types;
+        if (template.isArray())        types = ARRAY;
+        else if (template.isTextual()) types = STRING;
+        else if (template.isBoolean()) types = BOOLEAN;
+        else if (template.isNumber())  types = NUMBER | INTEGER;
+        else if (template.isNull())    types = NULL;
+        else throw new RuntimeException("Unknown type." + template);
+        return new Node(types, NONE, new ArrayList<>(), new ArrayList<>(), null, false);
+    }
+
+    private static Node schema(JsonNode schema) {
+        if (!schema.isObject()) throw new RuntimeException("Schema error! Not object : " + schema);
+        int types = ANY;
+        JsonNode type = schema.get("type");
+        if (type != null) {
+            types = 0;
+            if (type.isArray()) {
+                for (JsonNode each : type) types |= type(each.asText());
+            } else {
+                types = type(type.asText());
+            }
+        }
+        Set<String> required = new HashSet<>();
+        JsonNode req = schema.get("required");
+        if (req != null) for (JsonNode each : req) required.add(each.asText());
+        List<String> names = new ArrayList<>();
+        List<Node> fields = new ArrayList<>();
+        List<Boolean> flags = new ArrayList<>();
+        JsonNode properties = schema.get("properties");
+        if (properties != null) {
+            Iterator<Map.Entry<String, JsonNode>> it = properties.fields();
+            while (it.hasNext()) {
+                Map.Entry<String, JsonNode> field = it.next();
+                names.add(field.getKey());
+                fields.add(schema(field.getValue()));
+                flags.add(required.remove(field.getKey()));
+            }
+        }
+        /* Required without a schema of its own. */
+        for (String name : required) {
+            names.add(name);
+            fields.add(new Node(ANY, NONE, new ArrayList<>(), new ArrayList<>(), null, false));
+            flags.add(true);
+        }
+        JsonNode items = schema.get("items");
+        JsonNode additional = schema.get("additionalProperties");
+        boolean closed = additional != null && additional.isBoolean() && !additional.booleanValue();
+        return new Node(types, names, fields, flags, items == null ? null : schema(items), closed);
+    }
+
+    private static int type(String name) {
+        switch (name) {
+            case "object":  return OBJECT;
+            case "array":   return ARRAY;
+            case "string":  return STRING;
+            case "number":  return NUMBER | INTEGER;
+            case "integer": return INTEGER;
+            case "boolean": return BOOLEAN;
+            case "null":    return NULL;
+            default: throw new RuntimeException("Schema error! Unknown type : " + name);
+        }
+    }
+
+    private static int kind(JsonNode node) {
+        if (node.isObject())          return OBJECT;
+        if (node.isArray())           return ARRAY;
+        if (node.isTextual())         return STRING;
+        if (node.isIntegralNumber())  return INTEGER;
+        if (node.isNumber())          return NUMBER;
+        if (node.isBoolean())         return BOOLEAN;
+        if (node.isNull())            return NULL;
+        return 0;
+    }
+
+    private static int kind(JsonToken token) {
+        switch (token) {
+            case START_OBJECT:       return OBJECT;
+            case START_ARRAY:        return ARRAY;
+            case VALUE_STRING:       return STRING;
+            case VALUE_NUMBER_INT:   return INTEGER;
+            case VALUE_NUMBER_FLOAT: return NUMBER;
+            case VALUE_TRUE:
+            case VALUE_FALSE:        return BOOLEAN;
+            case VALUE_NULL:         return NULL;
+            default:                 return 0;
+        }
+    }
+
+    private static void walk(Node node, JsonNode value, StringBuilder at, Report report) {
+        if ((node.types & kind(value)) == 0) { report.add("Error Type of ", at); return; }
+        int mark = at.length();
+        if (value.isObject()) {
+            for (int i = 0; i < node.names.length && !report.full(); i++) {
+                JsonNode child = value.get(node.names[i]);
+                field(at, node.names[i]);
+                if (child != null) walk(node.fields[i], child, at, report);
+                else if (node.required[i]) report.add("No ", at);
+                at.setLength(mark);
+            }
+            if (node.closed) {
+                Iterator<String> keys = value.fieldNames();
+                while (keys.hasNext() && !report.full()) {
+                    String key = keys.next();
+                    if (!node.index.containsKey(key)) report.add("Unknown ", field(at, key));
+                    at.setLength(mark);
+                }
+            }
+        } else if (value.isArray() && node.items != null) {
+            for (int i = 0; i < value.size() && !report.full(); i++) {
+                walk(node.items, value.get(i), at.append('[').append(i).append(']'), report);
+                at.setLength(mark);
+            }
+        }
+    }
+
+    /**
+     * The parser is on the first token of the value.
+     */
+    private static void stream(Node node, JsonParser parser, StringBuilder at, Report report) throws IOException {
+        JsonToken token = parser.currentToken();
+        if ((node.types & kind(token)) == 0) {
+            report.add("Error Type of ", at);
+            parser.skipChildren();
+            return;
+        }
+        int mark = at.length();
+        if (token == JsonToken.START_OBJECT) {
+            if (node.names.length == 0 && !node.closed) { parser.skipChildren(); return; }
+            boolean[] seen = new boolean[node.names.length];
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                Integer i = node.index.get(name);
+                field(at, name);
+                if (i != null) {
+                    seen[i] = true;
+                    stream(node.fields[i], parser, at, report);
+                } else {
+                    if (node.closed) report.add("Unknown ", at);
+                    parser.skipChildren();
+                }
+                at.setLength(mark);
+                if (report.full()) return;
+            }
+            for (int i = 0; i < seen.length && !report.full(); i++) {
+                if (!seen[i] && node.required[i]) report.add("No ", field(at, node.names[i]));
+                at.setLength(mark);
+            }
+        } else if (token == JsonToken.START_ARRAY) {
+            if (node.items == null) { parser.skipChildren(); return; }
+            int i = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                stream(node.items, parser, at.append('[').append(i++).append(']'), report);
+                at.setLength(mark);
+                if (report.full()) return;
+            }
+        }
+    }
+
+    private static StringBuilder field(StringBuilder at, String name) {
+        if (at.length() > 0) at.append('.');
+        return at.append(name);
+    }
+
+    private static class Report {
+        final List<String> violations = new ArrayList<>();
+        final int limit;
+
+        Report(int limit) { this.limit = limit; }
+
+        void add(String what, CharSequence at) { violations.add(what + at); }
+
+        boolean full() { return violations.size() >= limit; }
+    }
+}
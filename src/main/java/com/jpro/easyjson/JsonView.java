@@ -0,0 +1,75 @@
+package com.jpro.easyjson;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Reusable, movable window over the nodes of another document!
+ * Every Json accessor works on the view, but moving it allocates nothing.
+ * One view per thread, it's mutable.
+ * A view of a PersistentJson is read-only: put() fails, and get(), getAs(), toArray()
+ * give read-only versions or copies, never writable wrappers of the shared nodes.
+ *
+ * Usage:
+ *   JsonView view = new JsonView();
+ *   items.forEach(view, item -> total += item.getDouble("price"));
+ */
+public class JsonView extends Json {
+    private boolean frozen;
+
+    /**
+     * Construct a view pointing at nothing!
+     */
+    public JsonView() { super((JsonNode) null); }
+
+    /**
+     * Point at the root of the passing document!
+     */
+    public JsonView of(Json json) { return point(json.root, json.frozen()); }
+
+    /**
+     * Move to the value by the passing keys, nothing if some key is missing!
+     */
+    public JsonView down(String... keys) { root = node(keys); return this; }
+
+    /**
+     * Move to the element of the current array, nothing if out of range!
+     */
+    public JsonView down(int index) { root = root.get(index); return this; }
+
+    /**
+     * False if the view points at nothing!
+     */
+    public boolean present() { return root != null; }
+
+    /**
+     * Inner using!
+     */
+    JsonView point(JsonNode node) { return point(node, false); }
+
+    JsonView point(JsonNode node, boolean frozen) {
+        root = node;
+        this.frozen = frozen;
+        return this;
+    }
+
+    @Override
+    boolean frozen() { return frozen; }
+
+    @Override
+    public <E> Json put(String k, E v) {
+        if (frozen) throw new RuntimeException("Json access error! Read-only view.");
+        return super.put(k, v);
+    }
+
+    @Override
+    public Array toArray() {
+        if (!frozen) return super.toArray();
+        JsonNode copy = root.deepCopy();
+        return new Array(copy);
+    }
+
+    @Override
+    public NumericArray toNumericArray() {
+        return frozen && root instanceof NumericArrayNode ? NumericArray.of(root.deepCopy()) : super.toNumericArray();
+    }
+}
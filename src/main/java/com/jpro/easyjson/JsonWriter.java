@@ -0,0 +1,312 @@
+package com.jpro.easyjson;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.POJONode;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Streaming serializer of Json trees, behind Json::dumps() and friends!
+ * The tree is walked straight into a Jackson generator: no ObjectWriter, no serializer provider,
+ * no String unless asked for. Generator buffers are recycled per thread by Jackson, and the
+ * String/byte[] results are built in a per-thread buffer, so the only garbage is the result.
+ *
+ * Three modes:
+ *   JsonWriter.COMPACT    same text as Json::dumps(), byte for byte
+ *   JsonWriter.PRETTY     Jackson default pretty printer, 2 spaces
+ *   JsonWriter.CANONICAL  compact, object keys sorted at every level, for hashing and signing
+ *
+ * Writers are stateless, share them between threads freely.
+ */
+public final class JsonWriter {
+    public static final JsonWriter COMPACT = new JsonWriter(false, false);
+    public static final JsonWriter PRETTY = new JsonWriter(true, false);
+    public static final JsonWriter CANONICAL = new JsonWriter(false, true);
+
+    /**
+     * Results above this size don't keep their buffer for the next call.
+     */
+    private static final int KEEP = 1 << 20;
+
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    private final boolean pretty;
+    private final boolean sorted;
+
+    private JsonWriter(boolean pretty, boolean sorted) {
+        this.pretty = pretty;
+        this.sorted = sorted;
+    }
+
+    public String toString(Json json) {
+        EasyJsonConfig c = Json.config();
+        long start = Json.start(c);
+        String _r;
+        try {
+            _r = text(json);
+        } catch (RuntimeException e) {
+            throw Json.failed(c, EasyJsonMetrics.Operation.DUMP, start, -1, e);
+        }
+        Json.record(c, EasyJsonMetrics.Operation.DUMP, start, _r.length(), json.root);
+        return _r;
+    }
+
+    public byte[] toBytes(Json json) {
+        EasyJsonConfig c = Json.config();
+        long start = Json.start(c);
+        byte[] _r;
+        try {
+            _r = bytes(json);
+        } catch (RuntimeException e) {
+            throw Json.failed(c, EasyJsonMetrics.Operation.DUMP, start, -1, e);
+        }
+        Json.record(c, EasyJsonMetrics.Operation.DUMP, start, _r.length, json.root);
+        return _r;
+    }
+
+    /**
+     * Append the text to a StringBuilder, a Writer or any Appendable!
+     */
+    public void write(Json json, Appendable out) {
+        EasyJsonConfig c = Json.config();
+        long start = Json.start(c);
+        try {
+            dump(json, out);
+        } catch (RuntimeException e) {
+            throw Json.failed(c, EasyJsonMetrics.Operation.DUMP, start, -1, e);
+        }
+        Json.record(c, EasyJsonMetrics.Operation.DUMP, start, -1, json.root);
+    }
+
+    /**
+     * Write UTF-8 bytes, the stream is flushed but not closed!
+     */
+    public void write(Json json, OutputStream out) {
+        EasyJsonConfig c = Json.config();
+        long start = Json.start(c);
+        try {
+            dump(json, out);
+        } catch (RuntimeException e) {
+            throw Json.failed(c, EasyJsonMetrics.Operation.DUMP, start, -1, e);
+        }
+        Json.record(c, EasyJsonMetrics.Operation.DUMP, start, -1, json.root);
+    }
+
+    /**
+     * Write UTF-8 bytes at the position of the buffer!
+     */
+    public void write(Json json, ByteBuffer out) {
+        EasyJsonConfig c = Json.config();
+        long start = Json.start(c);
+        int position = out.position();
+        try {
+            dump(json, new ByteBufferBackedOutputStream(out));
+        } catch (RuntimeException e) {
+            throw Json.failed(c, EasyJsonMetrics.Operation.DUMP, start, -1, e);
+        }
+        Json.record(c, EasyJsonMetrics.Operation.DUMP, start, out.position() - position, json.root);
+    }
+
+    /**
+     * Write the node as the next value of the generator, the generator stays open!
+     */
+    public void write(JsonGenerator g, JsonNode node) throws IOException {
+        if (pretty && g.getPrettyPrinter() == null) g.useDefaultPrettyPrinter();
+        node(g, node);
+    }
+
+    /**
+     * Inner using! The unmetered forms.
+     */
+    private String text(Json json) {
+        Buffers buffers = BUFFERS.get();
+        if (buffers.chars == null) return text(json, new StringBuilder(256));
+        StringBuilder chars = buffers.chars;
+        buffers.chars = null;
+        try {
+            return text(json, chars);
+        } finally {
+            if (chars.capacity() <= KEEP) {
+                chars.setLength(0);
+                buffers.chars = chars;
+            } else {
+                buffers.chars = new StringBuilder(256);
+            }
+        }
+    }
+
+    private byte[] bytes(Json json) {
+        Buffers buffers = BUFFERS.get();
+        if (buffers.bytes == null) return bytes(json, new Bytes());
+        Bytes bytes = buffers.bytes;
+        buffers.bytes = null;
+        try {
+            return bytes(json, bytes);
+        } finally {
+            bytes.reset();
+            buffers.bytes = bytes.buffer.length <= KEEP ? bytes : new Bytes();
+        }
+    }
+
+    private void dump(Json json, Appendable out) {
+        Writer writer = out instanceof Writer ? (Writer) out : new AppendableWriter(out);
+        try (JsonGenerator g = open(factory().createGenerator(writer))) {
+            write(g, json.root);
+        } catch (IOException e) {
+            throw new RuntimeException("Dump json error!");
+        }
+    }
+
+    private void dump(Json json, OutputStream out) {
+        try (JsonGenerator g = open(factory().createGenerator(out, JsonEncoding.UTF8))) {
+            write(g, json.root);
+        } catch (IOException e) {
+            throw new RuntimeException("Dump json error!");
+        }
+    }
+
+    private String text(Json json, StringBuilder chars) {
+        dump(json, chars);
+        return chars.toString();
+    }
+
+    private byte[] bytes(Json json, Bytes bytes) {
+        dump(json, bytes);
+        return Arrays.copyOf(bytes.buffer, bytes.size);
+    }
+
+    private static JsonFactory factory() { return Json.config().mapper().getFactory(); }
+
+    private static JsonGenerator open(JsonGenerator g) {
+        /* The caller owns the target. */
+        return g.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    private void node(JsonGenerator g, JsonNode node) throws IOException {
+        if (node == null) {
+            g.writeNull();
+            return;
+        }
+        switch (node.getNodeType()) {
+            case OBJECT:
+                g.writeStartObject(node, node.size());
+                if (sorted) {
+                    String[] names = new String[node.size()];
+                    Iterator<String> it = node.fieldNames();
+                    for (int i = 0; it.hasNext(); i++) names[i] = it.next();
+                    Arrays.sort(names);
+                    for (String name : names) {
+                        g.writeFieldName(name);
+                        node(g, node.get(name));
+                    }
+                } else {
+                    Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+                    while (fields.hasNext()) {
+                        Map.Entry<String, JsonNode> field = fields.next();
+                        g.writeFieldName(field.getKey());
+                        node(g, field.getValue());
+                    }
+                }
+                g.writeEndObject();
+                return;
+            case ARRAY:
+                if (node instanceof NumericArrayNode && ((NumericArrayNode) node).kind() != NumericArrayNode.INFLATED) {
+                    /* Straight from the primitive buffer. */
+                    ((NumericArrayNode) node).serialize(g, null);
+                    return;
+                }
+                g.writeStartArray(node, node.size());
+                for (int i = 0; i < node.size(); i++) node(g, node.get(i));
+                g.writeEndArray();
+                return;
+            case STRING:
+                g.writeString(node.textValue());
+                return;
+            case NUMBER:
+                switch (node.numberType()) {
+                    case INT:         g.writeNumber(node.intValue()); return;
+                    case LONG:        g.writeNumber(node.longValue()); return;
+                    case BIG_INTEGER: g.writeNumber(node.bigIntegerValue()); return;
+                    case FLOAT:       g.writeNumber(node.floatValue()); return;
+                    case BIG_DECIMAL: g.writeNumber(node.decimalValue()); return;
+                    default:
+                        if (node.isShort()) g.writeNumber(node.shortValue());
+                        else g.writeNumber(node.doubleValue());
+                        return;
+                }
+            case BOOLEAN:
+                g.writeBoolean(node.booleanValue());
+                return;
+            case NULL:
+            case MISSING:
+                g.writeNull();
+                return;
+            case BINARY:
+                g.writeBinary(node.binaryValue());
+                return;
+            default:
+                /* POJO nodes, the rare case, through the serializers of the config. */
+                Json.config().writer().writeValue(g, ((POJONode) node).getPojo());
+        }
+    }
+
+    /**
+     * Per thread result buffers, taken while in use, so a nested dump gets its own.
+     */
+    private static class Buffers {
+        StringBuilder chars = new StringBuilder(256);
+        Bytes bytes = new Bytes();
+    }
+
+    private static class Bytes extends OutputStream {
+        byte[] buffer = new byte[256];
+        int size;
+
+        @Override
+        public void write(int b) {
+            if (size == buffer.length) buffer = Arrays.copyOf(buffer, size << 1);
+            buffer[size++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (size + len > buffer.length) buffer = Arrays.copyOf(buffer, Math.max(size << 1, size + len));
+            System.arraycopy(b, off, buffer, size, len);
+            size += len;
+        }
+
+        void reset() { size = 0; }
+    }
+
+    private static class AppendableWriter extends Writer {
+        private final Appendable out;
+
+        AppendableWriter(Appendable out) { this.out = out; }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            if (out instanceof StringBuilder) ((StringBuilder) out).append(cbuf, off, len);
+            else out.append(CharBuffer.wrap(cbuf, off, len));
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException { out.append(str, off, off + len); }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+    }
+}
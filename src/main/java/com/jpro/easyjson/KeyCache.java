@@ -0,0 +1,57 @@
+package com.jpro.easyjson;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, thread-safe symbol table of field names, enable it by
+ * EasyJsonConfig.Builder::internKeys()!
+ * Json::put(), new Json(k, v), PersistentJson::put() and Json.parse(Map) take their
+ * field names from it, so a key repeated over millions of documents is one String instance.
+ * Json.parse() already gets canonical names from the symbol table of the Jackson parser
+ * (JsonFactory.Feature.INTERN_FIELD_NAMES), the cache stores the same String::intern()
+ * instances, so parsed and built documents share their keys.
+ *
+ * The table keeps the first capacity keys it sees and never evicts:
+ * message keys are a small, stable set. Past the capacity, new keys are passed through
+ * as they are and counted as misses, a growing misses() means the capacity is too small.
+ */
+public final class KeyCache {
+    private final ConcurrentMap<String, String> keys;
+    private final int capacity;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    KeyCache(int capacity) {
+        this.capacity = capacity;
+        this.keys = new ConcurrentHashMap<>(Math.min(capacity, 1024));
+    }
+
+    /**
+     * The canonical instance of the key!
+     */
+    public String intern(String key) {
+        String _r = keys.get(key);
+        if (_r != null) {
+            hits.increment();
+            return _r;
+        }
+        misses.increment();
+        if (keys.size() >= capacity) return key;
+        String canonical = key.intern();
+        _r = keys.putIfAbsent(canonical, canonical);
+        return _r == null ? canonical : _r;
+    }
+
+    public long hits() { return hits.sum(); }
+
+    public long misses() { return misses.sum(); }
+
+    public int size() { return keys.size(); }
+
+    public int capacity() { return capacity; }
+
+    @Override
+    public String toString() { return "KeyCache[size=" + size() + "/" + capacity + ", hits=" + hits() + ", misses=" + misses() + "]"; }
+}
@@ -0,0 +1,180 @@
+package com.jpro.easyjson;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.JsonTokenId;
+import com.fasterxml.jackson.core.util.JsonParserDelegate;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Parser enforcing the ParseLimits, token by token!
+ * Jackson reads the tree (and binds, and streams) through nextToken(), so every token passes here
+ * before any node is built for it.
+ */
+class LimitedJsonParser extends JsonParserDelegate {
+    private final ParseLimits limits;
+    private int depth;
+
+    /**
+     * Fields seen per open object, by depth.
+     */
+    private int[] fields = new int[16];
+
+    LimitedJsonParser(JsonParser parser, ParseLimits limits) {
+        super(parser);
+        this.limits = limits;
+    }
+
+    @Override
+    public JsonToken nextToken() throws IOException {
+        JsonToken _r = delegate.nextToken();
+        if (_r == null) return null;
+        switch (_r.id()) {
+            case JsonTokenId.ID_START_OBJECT:
+            case JsonTokenId.ID_START_ARRAY:
+                if (++depth > limits.maxDepth()) throw fail("depth " + depth + " over the limit of " + limits.maxDepth());
+                if (depth == fields.length) fields = Arrays.copyOf(fields, depth << 1);
+                fields[depth] = 0;
+                break;
+            case JsonTokenId.ID_END_OBJECT:
+            case JsonTokenId.ID_END_ARRAY:
+                depth--;
+                break;
+            case JsonTokenId.ID_FIELD_NAME:
+                if (++fields[depth] > limits.maxFields()) throw fail("fields over the limit of " + limits.maxFields());
+                if (delegate.getTextLength() > limits.maxStringLength())
+                    throw fail("field name of " + delegate.getTextLength() + " chars over the limit of " + limits.maxStringLength());
+                break;
+            case JsonTokenId.ID_STRING:
+                if (delegate.getTextLength() > limits.maxStringLength())
+                    throw fail("string of " + delegate.getTextLength() + " chars over the limit of " + limits.maxStringLength());
+                break;
+            case JsonTokenId.ID_NUMBER_INT:
+            case JsonTokenId.ID_NUMBER_FLOAT:
+                int len = delegate.getTextLength();
+                if (len > limits.maxNumberLength()) throw fail("number of " + len + " chars over the limit of " + limits.maxNumberLength());
+                /* Up to 18 digits always fit a long, no need to look closer. */
+                if (!limits.bigNumbers() && len > 18 && _r == JsonToken.VALUE_NUMBER_INT
+                        && delegate.getNumberType() == JsonParser.NumberType.BIG_INTEGER)
+                    throw fail("integer beyond long not allowed");
+                break;
+            default:
+        }
+        return _r;
+    }
+
+    /**
+     * Through nextToken(), the delegate would skip the checks!
+     */
+    @Override
+    public JsonToken nextValue() throws IOException {
+        JsonToken _r = nextToken();
+        return _r == JsonToken.FIELD_NAME ? nextToken() : _r;
+    }
+
+    @Override
+    public JsonParser skipChildren() throws IOException {
+        JsonToken token = currentToken();
+        if (token != JsonToken.START_OBJECT && token != JsonToken.START_ARRAY) return this;
+        for (int open = 1; open > 0; ) {
+            token = nextToken();
+            if (token == null) return this;
+            if (token.isStructStart()) open++;
+            else if (token.isStructEnd()) open--;
+        }
+        return this;
+    }
+
+    /**
+     * Inner using!
+     */
+    private JsonParseException fail(String message) {
+        return new JsonParseException(delegate, "Parse limit exceeded, " + message, delegate.getTokenLocation());
+    }
+
+    /**
+     * The stream, failing once more than maxDocumentBytes are read!
+     */
+    static InputStream limit(InputStream in, ParseLimits limits) {
+        if (limits.maxDocumentBytes() == Long.MAX_VALUE) return in;
+        return new FilterInputStream(in) {
+            private long count;
+
+            @Override
+            public int read() throws IOException {
+                int _r = super.read();
+                if (_r >= 0) count(1);
+                return _r;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int _r = super.read(b, off, len);
+                if (_r > 0) count(_r);
+                return _r;
+            }
+
+            private void count(int n) throws JsonParseException {
+                count += n;
+                if (count > limits.maxDocumentBytes())
+                    throw new JsonParseException((JsonParser) null, "Parse limit exceeded, document over the limit of " + limits.maxDocumentBytes(),
+                            new JsonLocation(null, limits.maxDocumentBytes(), -1, -1));
+            }
+        };
+    }
+
+    /**
+     * The stream of JSON lines, failing once one line is over maxDocumentBytes!
+     * The bytes before the long line are handed out first, the records before it still parse.
+     */
+    static InputStream lines(InputStream in, ParseLimits limits) {
+        if (limits.maxDocumentBytes() == Long.MAX_VALUE) return in;
+        return new FilterInputStream(in) {
+            /**
+             * Bytes handed out, and the offset of the current line.
+             */
+            private long offset, line;
+            private JsonParseException failure;
+
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (failure != null) throw failure;
+                int _r = super.read(b, off, len);
+                if (_r <= 0) return _r;
+                _r = count(b, off, _r);
+                if (_r == 0) throw failure;
+                return _r;
+            }
+
+            /**
+             * Bytes of the passing ones to hand out, fewer once a line is over the limit.
+             */
+            private int count(byte[] b, int off, int n) {
+                for (int i = 0; i < n; i++) {
+                    if (b[off + i] == '\n') {
+                        line = offset + i + 1;
+                    } else if (offset + i + 1 - line > limits.maxDocumentBytes()) {
+                        failure = new JsonParseException((JsonParser) null, "Parse limit exceeded, line over the limit of " + limits.maxDocumentBytes(),
+                                new JsonLocation(null, offset + i, -1, -1));
+                        offset += i;
+                        return i;
+                    }
+                }
+                offset += n;
+                return n;
+            }
+        };
+    }
+}
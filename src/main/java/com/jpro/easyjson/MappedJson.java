@@ -0,0 +1,390 @@
+package com.jpro.easyjson;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Lazy, index-backed view of a memory-mapped JSON file, created by Json.parseLazy(Path)!
+ * Objects and arrays stay byte offsets into the mapped file. The first get()/keys()/iteration
+ * on a container scans its direct children once and keeps their offsets as the index,
+ * nested values are skipped byte by byte and never built. json() builds the JsonNode
+ * of one value only, so files larger than the heap can be queried.
+ *
+ * Same as Json::get(String...), a missing value is a view with has() false,
+ * and passing through a value of the wrong type is an access error.
+ * A view is not synchronized, same as Json.
+ */
+public class MappedJson implements Iterable<MappedJson> {
+    private final Source source;
+
+    /**
+     * First byte of the value, -1 for a missing value.
+     */
+    private final long offset;
+
+    /**
+     * End of the value, 0 until known.
+     */
+    private long end;
+
+    /*
+     * The index, built at the first touch of the container.
+     */
+    private Map<String, Long> fields;
+    private Map<String, MappedJson> children;
+    private long[] elements;
+    private int count;
+
+    private MappedJson(Source source, long offset, long end) {
+        this.source = source;
+        this.offset = offset;
+        this.end = end;
+    }
+
+    static MappedJson open(Path path) {
+        Source source = Source.map(path);
+        long offset = source.skipSpace(0);
+        if (offset >= source.size) throw new RuntimeException("Parse json error! Empty file : " + path);
+        return new MappedJson(source, offset, source.size);
+    }
+
+    /**
+     * Build the whole file as a Json tree, reading the mapped bytes directly!
+     */
+    static Json parse(Path path) {
+        EasyJsonConfig c = Json.config();
+        long start = Json.start(c);
+        Source source = Source.map(path);
+        try {
+            c.limits().size(source.size);
+            JsonNode _r = Json.tree(c, source.stream(0, source.size));
+            Json.record(c, EasyJsonMetrics.Operation.PARSE, start, source.size, _r);
+            return new Json(_r);
+        } catch (IOException e) {
+            throw Json.failed(c, EasyJsonMetrics.Operation.PARSE, start, source.size, Json.error(e));
+        }
+    }
+
+    public boolean has() { return offset >= 0; }
+
+    public boolean has(String... keys) { return get(keys).has(); }
+
+    public boolean isObject() { return has() && source.at(offset) == '{'; }
+
+    public boolean isArray() { return has() && source.at(offset) == '['; }
+
+    /**
+     * Value accessing by the passing keys, only the containers on the way are indexed!
+     */
+    public MappedJson get(String... keys) {
+        MappedJson last = this;
+        for (int i = 0; i < keys.length - 1; i++) {
+            MappedJson next = last.field(keys[i]);
+            if (next == null) return missing();
+            if (!next.isObject()) throw new RuntimeException("Json access error!");
+            last = next;
+        }
+        MappedJson _r = last.field(keys[keys.length - 1]);
+        return _r == null ? missing() : _r;
+    }
+
+    /**
+     * Element accessing of an array view, missing if out of range!
+     */
+    public MappedJson get(int index) {
+        if (!isArray()) throw new RuntimeException("Json access error! Not array.");
+        indexArray();
+        if (index < 0 || index >= count) return missing();
+        return new MappedJson(source, elements[index], 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T getAs(String... keys) { return (T) get(keys).value(); }
+
+    public List<String> keys() {
+        if (!isObject()) return new ArrayList<>();
+        indexObject();
+        return new ArrayList<>(fields.keySet());
+    }
+
+    /**
+     * Count of fields or elements!
+     */
+    public int size() {
+        if (isObject()) { indexObject(); return fields.size(); }
+        if (isArray()) { indexArray(); return count; }
+        return 0;
+    }
+
+    /**
+     * Build this value only!
+     */
+    public Json json() {
+        if (!has()) return new Json((JsonNode) null);
+        try {
+            JsonNode node = Json.tree(Json.config(), source.stream(offset, end()));
+            return node.isArray() ? new Array(node) : new Json(node);
+        } catch (IOException e) {
+            throw Json.error(e, offset);
+        }
+    }
+
+    /**
+     * If the value is basic type, you can obtain the raw value!
+     */
+    public Object value() { return has() ? json().value() : null; }
+
+    /**
+     * To JSON string of this value!
+     */
+    public String dumps() { return json().dumps(); }
+
+    @Override
+    public String toString() { return dumps(); }
+
+    @Override
+    public Iterator<MappedJson> iterator() {
+        if (!isArray()) throw new RuntimeException("Json access error! Not array.");
+        indexArray();
+        return new Iterator<MappedJson>() {
+            private int cursor;
+
+            @Override
+            public boolean hasNext() { return cursor < count; }
+
+            @Override
+            public MappedJson next() {
+                if (cursor >= count) throw new NoSuchElementException();
+                return new MappedJson(source, elements[cursor++], 0);
+            }
+        };
+    }
+
+    /**
+     * Inner using!
+     */
+    private MappedJson missing() { return new MappedJson(source, -1, 0); }
+
+    /**
+     * Inner using! The child view, containers are kept with their index.
+     */
+    private MappedJson field(String key) {
+        if (!isObject()) return null;
+        indexObject();
+        MappedJson _r = children.get(key);
+        if (_r != null) return _r;
+        Long at = fields.get(key);
+        if (at == null) return null;
+        _r = new MappedJson(source, at, 0);
+        byte c = source.at(at);
+        if (c == '{' || c == '[') children.put(key, _r);
+        return _r;
+    }
+
+    private long end() {
+        if (end == 0) end = source.skipValue(offset);
+        return end;
+    }
+
+    private void indexObject() {
+        if (fields != null) return;
+        Map<String, Long> index = new LinkedHashMap<>();
+        long p = source.skipSpace(offset + 1);
+        if (source.at(p) != '}') {
+            while (true) {
+                if (source.at(p) != '"') throw source.error(p);
+                long e = source.skipString(p);
+                String key = source.string(p, e);
+                p = source.skipSpace(e);
+                if (source.at(p) != ':') throw source.error(p);
+                p = source.skipSpace(p + 1);
+                index.put(key, p);
+                p = source.skipSpace(source.skipValue(p));
+                byte c = source.at(p);
+                if (c == '}') break;
+                if (c != ',') throw source.error(p);
+                p = source.skipSpace(p + 1);
+            }
+        }
+        end = p + 1;
+        fields = index;
+        children = new HashMap<>();
+    }
+
+    private void indexArray() {
+        if (elements != null) return;
+        long[] index = new long[8];
+        int n = 0;
+        long p = source.skipSpace(offset + 1);
+        if (source.at(p) != ']') {
+            while (true) {
+                if (n == index.length) index = Arrays.copyOf(index, n * 2);
+                index[n++] = p;
+                p = source.skipSpace(source.skipValue(p));
+                byte c = source.at(p);
+                if (c == ']') break;
+                if (c != ',') throw source.error(p);
+                p = source.skipSpace(p + 1);
+            }
+        }
+        end = p + 1;
+        elements = index;
+        count = n;
+    }
+
+    /**
+     * The mapped file, in segments of 1 GB, with the byte scanner.
+     */
+    private static class Source {
+        static final int SHIFT = 30;
+        static final long MASK = (1L << SHIFT) - 1;
+
+        final ByteBuffer[] segments;
+        final long size;
+
+        Source(ByteBuffer[] segments, long size) {
+            this.segments = segments;
+            this.size = size;
+        }
+
+        static Source map(Path path) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                ByteBuffer[] segments = new ByteBuffer[(int) ((size + MASK) >>> SHIFT)];
+                for (int i = 0; i < segments.length; i++) {
+                    long begin = (long) i << SHIFT;
+                    segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, begin, Math.min(MASK + 1, size - begin));
+                }
+                /* The mapping stays valid after the channel is closed. */
+                return new Source(segments, size);
+            } catch (IOException e) {
+                throw new RuntimeException("Open json file error! " + path);
+            }
+        }
+
+        byte at(long p) {
+            if (p >= size) throw error(p);
+            return segments[(int) (p >>> SHIFT)].get((int) (p & MASK));
+        }
+
+        long skipSpace(long p) {
+            while (p < size) {
+                byte c = at(p);
+                if (c != ' ' && c != '\n' && c != '\r' && c != '\t') break;
+                p++;
+            }
+            return p;
+        }
+
+        /**
+         * The position after the string starting at p.
+         */
+        long skipString(long p) {
+            p++;
+            while (true) {
+                byte c = at(p);
+                if (c == '\\') p += 2;
+                else if (c == '"') return p + 1;
+                else p++;
+            }
+        }
+
+        /**
+         * The position after the value starting at p, nothing is built.
+         */
+        long skipValue(long p) {
+            byte c = at(p);
+            if (c == '"') return skipString(p);
+            if (c == '{' || c == '[') return skipContainer(p);
+            while (p < size) {
+                c = at(p);
+                if (c == ',' || c == '}' || c == ']' || c == ' ' || c == '\n' || c == '\r' || c == '\t') break;
+                p++;
+            }
+            return p;
+        }
+
+        /**
+         * Tight loop over the segments, this is the hot part of indexing.
+         */
+        private long skipContainer(long p) {
+            int depth = 0;
+            boolean text = false;
+            int s = (int) (p >>> SHIFT);
+            int i = (int) (p & MASK);
+            for (; s < segments.length; s++) {
+                ByteBuffer segment = segments[s];
+                int limit = segment.limit();
+                for (; i < limit; i++) {
+                    byte c = segment.get(i);
+                    if (text) {
+                        if (c == '\\') i++;
+                        else if (c == '"') text = false;
+                    } else if (c == '"') {
+                        text = true;
+                    } else if (c == '{' || c == '[') {
+                        depth++;
+                    } else if ((c == '}' || c == ']') && --depth == 0) {
+                        return ((long) s << SHIFT) + i + 1;
+                    }
+                }
+                /* An escape may step over the segment end. */
+                i -= limit;
+            }
+            throw error(size);
+        }
+
+        /**
+         * Decode the string token between begin and end.
+         */
+        String string(long begin, long end) {
+            byte[] bytes = new byte[(int) (end - begin - 2)];
+            boolean escaped = false;
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = at(begin + 1 + i);
+                if (bytes[i] == '\\') escaped = true;
+            }
+            if (!escaped) return new String(bytes, StandardCharsets.UTF_8);
+            try {
+                return Json.config().reader().readTree(stream(begin, end)).textValue();
+            } catch (IOException e) {
+                throw Json.error(e, begin);
+            }
+        }
+
+        InputStream stream(long begin, long end) {
+            return new InputStream() {
+                private long p = begin;
+
+                @Override
+                public int read() {
+                    return p < end ? at(p++) & 0xFF : -1;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    if (p >= end) return -1;
+                    ByteBuffer segment = segments[(int) (p >>> SHIFT)].duplicate();
+                    int at = (int) (p & MASK);
+                    int n = (int) Math.min(len, Math.min(end - p, segment.limit() - at));
+                    segment.position(at);
+                    segment.get(b, off, n);
+                    p += n;
+                    return n;
+                }
+            };
+        }
+
+        RuntimeException error(long p) {
+            return new RuntimeException("Parse json error! Offset : " + p);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.jpro.easyjson;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * How Json::deepMerge() merges, build it once and reuse it!
+ * Objects are always merged field by field, the other side wins for values.
+ * Arrays follow the strategy of their path, REPLACE by default.
+ *
+ * Paths are the field names joined by '.', e.g. "spec.containers".
+ * Array elements add nothing to the path, so the fields of merged elements
+ * are "spec.containers.ports" and so on.
+ *
+ * Usage:
+ *   MergePolicy policy = MergePolicy.builder()
+ *           .arrays(MergePolicy.Strategy.CONCAT)
+ *           .mergeByKey("spec.containers", "name")
+ *           .parallel(ForkJoinPool.commonPool(), 64)
+ *           .build();
+ *
+ * A built MergePolicy is immutable, share it between threads freely.
+ */
+public class MergePolicy {
+    public enum Strategy {
+        /** The other array replaces the array! */
+        REPLACE,
+        /** Elements of the other array are appended! */
+        CONCAT,
+        /** Object elements with the same key value are merged, the others are appended! */
+        MERGE_BY_KEY
+    }
+
+    private final Strategy arrays;
+    private final Rule rules;
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    private MergePolicy(Builder builder) {
+        arrays = builder.arrays;
+        rules = new Rule();
+        for (Map.Entry<String, Strategy> entry : builder.strategies.entrySet()) {
+            Rule rule = rules;
+            for (String name : entry.getKey().split("\\.")) rule = rule.children.computeIfAbsent(name, k -> new Rule());
+            rule.strategy = entry.getValue();
+            rule.key = builder.keys.get(entry.getKey());
+        }
+        pool = builder.pool;
+        threshold = builder.threshold;
+    }
+
+    /**
+     * Compiled path rules, one per field name on the way, so the merge never builds a path.
+     */
+    static class Rule {
+        final Map<String, Rule> children = new HashMap<>();
+        Strategy strategy;
+        String key;
+
+        Rule child(String name) { return children.isEmpty() ? null : children.get(name); }
+    }
+
+    /**
+     * Arrays are replaced, single thread!
+     */
+    public static MergePolicy defaults() { return DEFAULTS; }
+
+    private static final MergePolicy DEFAULTS = builder().build();
+
+    public static Builder builder() { return new Builder(); }
+
+    Rule rules() { return rules; }
+
+    Strategy strategy(Rule rule) { return rule == null || rule.strategy == null ? arrays : rule.strategy; }
+
+    ForkJoinPool pool() { return pool; }
+
+    int threshold() { return threshold; }
+
+    public static class Builder {
+        private Strategy arrays = Strategy.REPLACE;
+        private final Map<String, Strategy> strategies = new HashMap<>();
+        private final Map<String, String> keys = new HashMap<>();
+        private ForkJoinPool pool;
+        private int threshold = Integer.MAX_VALUE;
+
+        private Builder() {}
+
+        /**
+         * Strategy of the arrays without a rule of their own!
+         */
+        public Builder arrays(Strategy strategy) {
+            if (strategy == Strategy.MERGE_BY_KEY) throw new RuntimeException("Merge policy error! Key needed, use mergeByKey().");
+            arrays = strategy;
+            return this;
+        }
+
+        /**
+         * Strategy of the array at the passing path!
+         */
+        public Builder array(String path, Strategy strategy) {
+            if (strategy == Strategy.MERGE_BY_KEY) throw new RuntimeException("Merge policy error! Key needed, use mergeByKey().");
+            strategies.put(path, strategy);
+            keys.remove(path);
+            return this;
+        }
+
+        /**
+         * Merge the object elements of the array at the passing path by the value of their key field!
+         */
+        public Builder mergeByKey(String path, String key) {
+            strategies.put(path, Strategy.MERGE_BY_KEY);
+            keys.put(path, key);
+            return this;
+        }
+
+        /**
+         * Merge the top level fields on the pool, once the other document has at least threshold of them!
+         */
+        public Builder parallel(ForkJoinPool pool, int threshold) {
+            if (pool == null || threshold < 1) throw new RuntimeException("Merge policy error! Pool : " + pool + ", threshold : " + threshold);
+            this.pool = pool;
+            this.threshold = threshold;
+            return this;
+        }
+
+        public MergePolicy build() { return new MergePolicy(this); }
+    }
+}
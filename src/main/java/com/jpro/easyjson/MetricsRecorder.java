@@ -0,0 +1,199 @@
+package com.jpro.easyjson;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Default EasyJsonMetrics, lock-free histograms kept in process!
+ * Per operation: time in nanoseconds, text size, tree depth and node count, each as a
+ * log-linear histogram (HdrHistogram style, 32 sub-buckets per power of two, within ~3%),
+ * plus the slowest call seen with its size and shape, to tell which payloads make the p99.
+ * Failed calls count in the histograms of time and size, and in "failed".
+ *
+ * Dump it by toJson() / dumps():
+ *   {"parse":{"count":12,"failed":1,"nanos":{"mean":..,"p50":..,"p90":..,"p99":..,"p999":..,"max":..},
+ *             "size":{..},"depth":{..},"nodes":{..},"slowest":{"nanos":..,"size":..,"depth":..,"nodes":..}},..}
+ */
+public final class MetricsRecorder implements EasyJsonMetrics {
+    private final boolean shape;
+    private volatile Stats[] stats = stats();
+
+    /**
+     * shape false skips the tree walk, depth and nodes stay empty!
+     */
+    public MetricsRecorder(boolean shape) { this.shape = shape; }
+
+    @Override
+    public void record(Operation operation, long nanos, long size, int depth, int nodes) {
+        Stats s = stats[operation.ordinal()];
+        s.nanos.record(nanos);
+        s.size.record(size);
+        s.depth.record(depth);
+        s.nodes.record(nodes);
+        Sample slowest = s.slowest.get();
+        while (slowest == null || nanos > slowest.nanos) {
+            Sample sample = new Sample(nanos, size, depth, nodes);
+            if (s.slowest.compareAndSet(slowest, sample)) break;
+            slowest = s.slowest.get();
+        }
+    }
+
+    @Override
+    public void failed(Operation operation, long nanos, long size) {
+        record(operation, nanos, size, -1, -1);
+        stats[operation.ordinal()].failed.increment();
+    }
+
+    @Override
+    public boolean shape() { return shape; }
+
+    /**
+     * Failed calls of the operation, included in the histograms!
+     */
+    public long failed(Operation operation) { return stats[operation.ordinal()].failed.sum(); }
+
+    public Histogram nanos(Operation operation) { return stats[operation.ordinal()].nanos; }
+
+    public Histogram size(Operation operation) { return stats[operation.ordinal()].size; }
+
+    public Histogram depth(Operation operation) { return stats[operation.ordinal()].depth; }
+
+    public Histogram nodes(Operation operation) { return stats[operation.ordinal()].nodes; }
+
+    /**
+     * Forget everything recorded so far!
+     */
+    public void reset() { stats = stats(); }
+
+    /**
+     * The recorded operations, those never called are left out!
+     */
+    public Json toJson() {
+        Json _r = new Json();
+        Stats[] all = stats;
+        for (Operation operation : Operation.values()) {
+            Stats s = all[operation.ordinal()];
+            if (s.nanos.count() == 0) continue;
+            Json op = new Json().put("count", s.nanos.count());
+            if (s.failed.sum() > 0) op.put("failed", s.failed.sum());
+            op.put("nanos", s.nanos.toJson());
+            /* Unknown sizes and shapes are not counted, no histogram of nothing. */
+            if (s.size.count() > 0) op.put("size", s.size.toJson());
+            if (s.depth.count() > 0) op.put("depth", s.depth.toJson()).put("nodes", s.nodes.toJson());
+            Sample slowest = s.slowest.get();
+            if (slowest != null) {
+                op.put("slowest", new Json().put("nanos", slowest.nanos).put("size", slowest.size)
+                        .put("depth", slowest.depth).put("nodes", slowest.nodes));
+            }
+            _r.put(operation.key(), op);
+        }
+        return _r;
+    }
+
+    public String dumps() { return toJson().dumps(); }
+
+    @Override
+    public String toString() { return dumps(); }
+
+    /**
+     * Log-linear histogram of non-negative values, negative ones (unknown) are not counted!
+     * Values are kept up to 2^40, larger ones count in the last bucket.
+     */
+    public static final class Histogram {
+        private static final int SUB_BITS = 5, SUB = 1 << SUB_BITS, MAX_BITS = 40;
+        private static final long MAX = (1L << MAX_BITS) - 1;
+
+        private final AtomicLongArray counts = new AtomicLongArray((MAX_BITS - SUB_BITS + 1) * SUB);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        void record(long value) {
+            if (value < 0) return;
+            counts.incrementAndGet(index(Math.min(value, MAX)));
+            count.increment();
+            sum.add(value);
+            max.accumulate(value);
+        }
+
+        public long count() { return count.sum(); }
+
+        public long max() { return max.get(); }
+
+        public double mean() {
+            long n = count();
+            return n == 0 ? 0 : (double) sum.sum() / n;
+        }
+
+        /**
+         * The value at the quantile (0.99 for p99), the upper bound of its bucket!
+         */
+        public long percentile(double quantile) {
+            long n = count();
+            if (n == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(quantile * n)), seen = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                seen += counts.get(i);
+                if (seen >= rank) return Math.min(upper(i), max());
+            }
+            return max();
+        }
+
+        public Json toJson() {
+            return new Json().put("mean", Math.round(mean()))
+                    .put("p50", percentile(0.5))
+                    .put("p90", percentile(0.9))
+                    .put("p99", percentile(0.99))
+                    .put("p999", percentile(0.999))
+                    .put("max", max());
+        }
+
+        /**
+         * Inner using! Values below 2 * SUB have a bucket each, then SUB buckets per power of two.
+         */
+        private static int index(long v) {
+            if (v < 2 * SUB) return (int) v;
+            int shift = 63 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+            return (shift + 1) * SUB + (int) (v >>> shift) - SUB;
+        }
+
+        private static long upper(int index) {
+            if (index < 2 * SUB) return index;
+            int shift = index / SUB - 1;
+            long mantissa = index % SUB + SUB;
+            return ((mantissa + 1) << shift) - 1;
+        }
+    }
+
+    /**
+     * Inner using!
+     */
+    private static Stats[] stats() {
+        Stats[] _r = new Stats[Operation.values().length];
+        for (int i = 0; i < _r.length; i++) _r[i] = new Stats();
+        return _r;
+    }
+
+    private static class Stats {
+        final Histogram nanos = new Histogram();
+        final Histogram size = new Histogram();
+        final Histogram depth = new Histogram();
+        final Histogram nodes = new Histogram();
+        final AtomicReference<Sample> slowest = new AtomicReference<>();
+        final LongAdder failed = new LongAdder();
+    }
+
+    private static class Sample {
+        final long nanos, size;
+        final int depth, nodes;
+
+        Sample(long nanos, long size, int depth, int nodes) {
+            this.nanos = nanos;
+            this.size = size;
+            this.depth = depth;
+            this.nodes = nodes;
+        }
+    }
+}
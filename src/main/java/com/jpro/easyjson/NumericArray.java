@@ -0,0 +1,78 @@
+package com.jpro.easyjson;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * JsonArray of numbers, backed by int[], long[] or double[]!
+ * No node object and no boxing per element, the dump is written straight from the buffer.
+ * Create it by Json::array(double[]) / Json::array(long[]) / Json::array(int[]),
+ * or get it from a parsed array by Json::toNumericArray().
+ *
+ * Adding a value of another kind (e.g. a String) still works,
+ * but the array falls back to the node per element layout.
+ */
+public class NumericArray extends Array {
+    /**
+     * Construct an empty JsonArray of doubles!
+     */
+    public NumericArray() { this(NumericArrayNode.DOUBLE); }
+
+    NumericArray(int kind) { super(new NumericArrayNode(config().nodeFactory(), kind)); }
+
+    NumericArray(NumericArrayNode node) { super(node); }
+
+    public NumericArray add(int v) { node().add(v); return this; }
+
+    public NumericArray add(long v) { node().add(v); return this; }
+
+    public NumericArray add(double v) { node().add(v); return this; }
+
+    public NumericArray addAll(int[] values) { node().addAll(values, 0, values.length); return this; }
+
+    public NumericArray addAll(long[] values) { node().addAll(values, 0, values.length); return this; }
+
+    public NumericArray addAll(double[] values) { node().addAll(values, 0, values.length); return this; }
+
+    public NumericArray addAll(double[] values, int offset, int len) { node().addAll(values, offset, len); return this; }
+
+    public int size() { return root.size(); }
+
+    public double getDouble(int index) { return root.get(index).asDouble(); }
+
+    public long getLong(int index) { return root.get(index).asLong(); }
+
+    /**
+     * Copy of the elements, without boxing!
+     */
+    public double[] toDoubleArray() { return node().toDoubleArray(); }
+
+    public long[] toLongArray() { return node().toLongArray(); }
+
+    public int[] toIntArray() { return node().toIntArray(); }
+
+    /**
+     * Inner using!
+     */
+    private NumericArrayNode node() { return (NumericArrayNode) root; }
+
+    /**
+     * Inner using! The compact copy of a numeric array node.
+     */
+    static NumericArray of(JsonNode node) {
+        if (node instanceof NumericArrayNode) return new NumericArray((NumericArrayNode) node);
+        if (node == null || !node.isArray()) throw new RuntimeException("Json access error! Not array.");
+        int kind = NumericArrayNode.INT;
+        for (JsonNode each : node) {
+            if (each.isDouble() || each.isFloat()) kind = NumericArrayNode.DOUBLE;
+            else if (each.isLong() && kind == NumericArrayNode.INT) kind = NumericArrayNode.LONG;
+            else if (!each.isInt() && !each.isLong()) throw new RuntimeException("Json access error! Not number : " + each);
+        }
+        NumericArray _r = new NumericArray(kind);
+        for (JsonNode each : node) {
+            if (kind == NumericArrayNode.DOUBLE) _r.add(each.doubleValue());
+            else if (kind == NumericArrayNode.LONG) _r.add(each.longValue());
+            else _r.add(each.intValue());
+        }
+        return _r;
+    }
+}
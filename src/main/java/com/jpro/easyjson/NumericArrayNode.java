@@ -0,0 +1,517 @@
+package com.jpro.easyjson;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.JsonTokenId;
+import com.fasterxml.jackson.core.type.WritableTypeId;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Jackson array node backed by int[], long[] or double[], the root of NumericArray!
+ * Elements are kept primitive and serialized straight from the buffer.
+ * Reading an element builds its IntNode/LongNode/DoubleNode on the fly.
+ * Adding an element of another kind, or any structural change other than add,
+ * inflates the node into a plain ArrayNode layout for good.
+ *
+ * An int array widened to long by a bigger element still reads the values that fit an int
+ * back as IntNode, as Jackson parses them; a long array from a long[] or USE_LONG_FOR_INTS
+ * reads LongNode only.
+ *
+ * Reading never changes the layout, a compact node shared between threads
+ * (PersistentJson, ParseCache) is safe to read concurrently.
+ *
+ * Mind: the elements are not in ArrayNode::_children, and Jackson's own ArrayNode reads that
+ * list directly for the other side of a few calls. From a plain ArrayNode:
+ *   plain.addAll(compact)        adds nothing, add the elements one by one
+ *   plain.equals(compact)        is always false (compact.equals(plain) is right)
+ *   plain.equals(cmp, compact)   same
+ * Json.diff(), Json::equal(), Json::deepMerge() and the rest of EasyJson take care of it.
+ */
+@SuppressWarnings("unchecked") // deepCopy(), see there
+class NumericArrayNode extends ArrayNode {
+    private static final long serialVersionUID = 1L;
+
+    static final int INFLATED = 0, INT = 1, LONG = 2, DOUBLE = 3;
+
+    private int kind;
+    private int size;
+
+    /**
+     * Longs that fit an int read as IntNode.
+     */
+    private final boolean narrow;
+    private int[] ints;
+    private long[] longs;
+    private double[] doubles;
+
+    NumericArrayNode(JsonNodeFactory factory, int kind) { this(factory, kind, false); }
+
+    /**
+     * Narrow for the arrays of a parse: the longs of a LONG array that fit an int read as IntNode!
+     * An INT array is always narrow once widened.
+     */
+    NumericArrayNode(JsonNodeFactory factory, int kind, boolean narrow) {
+        super(factory);
+        this.kind = kind;
+        this.narrow = narrow || kind == INT;
+        if (kind == INT) ints = new int[8];
+        else if (kind == LONG) longs = new long[8];
+        else doubles = new double[8];
+    }
+
+    int kind() { return kind; }
+
+    /*
+     * Primitive bulk access!
+     */
+
+    void addAll(int[] values, int offset, int len) {
+        if (kind == INT) {
+            ensure(size + len);
+            System.arraycopy(values, offset, ints, size, len);
+            size += len;
+        } else {
+            for (int i = offset; i < offset + len; i++) add(values[i]);
+        }
+    }
+
+    void addAll(long[] values, int offset, int len) {
+        if (kind == INT) widen();
+        if (kind == LONG) {
+            ensure(size + len);
+            System.arraycopy(values, offset, longs, size, len);
+            size += len;
+        } else {
+            for (int i = offset; i < offset + len; i++) add(values[i]);
+        }
+    }
+
+    void addAll(double[] values, int offset, int len) {
+        if (kind == DOUBLE) {
+            ensure(size + len);
+            System.arraycopy(values, offset, doubles, size, len);
+            size += len;
+        } else {
+            for (int i = offset; i < offset + len; i++) add(values[i]);
+        }
+    }
+
+    double[] toDoubleArray() {
+        if (kind == DOUBLE) return Arrays.copyOf(doubles, size);
+        double[] _r = new double[size()];
+        for (int i = 0; i < _r.length; i++) _r[i] = kind == INT ? ints[i] : kind == LONG ? longs[i] : get(i).asDouble();
+        return _r;
+    }
+
+    long[] toLongArray() {
+        if (kind == LONG) return Arrays.copyOf(longs, size);
+        long[] _r = new long[size()];
+        for (int i = 0; i < _r.length; i++) _r[i] = kind == INT ? ints[i] : element(i).asLong();
+        return _r;
+    }
+
+    int[] toIntArray() {
+        if (kind == INT) return Arrays.copyOf(ints, size);
+        int[] _r = new int[size()];
+        for (int i = 0; i < _r.length; i++) _r[i] = element(i).asInt();
+        return _r;
+    }
+
+    /**
+     * Parse support! Append the current number token, false if it doesn't fit.
+     */
+    boolean append(JsonParser p) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_FLOAT) {
+            if (kind != DOUBLE || p.getNumberType() != JsonParser.NumberType.DOUBLE) return false;
+            ensure(size + 1);
+            doubles[size++] = p.getDoubleValue();
+            return true;
+        }
+        if (token != JsonToken.VALUE_NUMBER_INT || kind == DOUBLE) return false;
+        JsonParser.NumberType type = p.getNumberType();
+        if (type == JsonParser.NumberType.INT && kind == INT) {
+            ensure(size + 1);
+            ints[size++] = p.getIntValue();
+            return true;
+        }
+        if (type == JsonParser.NumberType.BIG_INTEGER) return false;
+        if (kind == INT) widen();
+        ensure(size + 1);
+        longs[size++] = p.getLongValue();
+        return true;
+    }
+
+    /**
+     * Parse support! The same elements in a plain ArrayNode.
+     */
+    ArrayNode plain() {
+        ArrayNode _r = _nodeFactory.arrayNode(size());
+        for (int i = 0; i < size(); i++) _r.add(get(i));
+        return _r;
+    }
+
+    /*
+     * ArrayNode, reading.
+     */
+
+    @Override
+    public int size() { return kind == INFLATED ? super.size() : size; }
+
+    @Override
+    public boolean isEmpty() { return size() == 0; }
+
+    @Override
+    public boolean isEmpty(SerializerProvider serializers) { return isEmpty(); }
+
+    @Override
+    public JsonNode get(int index) {
+        if (kind == INFLATED) return super.get(index);
+        if (index < 0 || index >= size) return null;
+        return element(index);
+    }
+
+    @Override
+    public JsonNode path(int index) {
+        JsonNode _r = get(index);
+        return _r == null ? MissingNode.getInstance() : _r;
+    }
+
+    @Override
+    public JsonNode required(int index) {
+        if (kind == INFLATED) return super.required(index);
+        if (index < 0 || index >= size) return _reportRequiredViolation("No value at index #%d [0, %d) of `ArrayNode`", index, size);
+        return element(index);
+    }
+
+    @Override
+    public Iterator<JsonNode> elements() {
+        if (kind == INFLATED) return super.elements();
+        return new Iterator<JsonNode>() {
+            private int cursor;
+
+            @Override
+            public boolean hasNext() { return cursor < size; }
+
+            @Override
+            public JsonNode next() {
+                if (cursor >= size) throw new NoSuchElementException();
+                return element(cursor++);
+            }
+        };
+    }
+
+    @Override
+    public void serialize(JsonGenerator g, SerializerProvider provider) throws IOException {
+        switch (kind) {
+            case INT:    g.writeArray(ints, 0, size); break;
+            case LONG:   g.writeArray(longs, 0, size); break;
+            case DOUBLE: g.writeArray(doubles, 0, size); break;
+            default:     super.serialize(g, provider);
+        }
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator g, SerializerProvider provider, TypeSerializer typeSer) throws IOException {
+        if (kind == INFLATED) {
+            super.serializeWithType(g, provider, typeSer);
+            return;
+        }
+        WritableTypeId type = typeSer.writeTypePrefix(g, typeSer.typeId(this, JsonToken.START_ARRAY));
+        for (int i = 0; i < size; i++) {
+            switch (kind) {
+                case INT:  g.writeNumber(ints[i]); break;
+                case LONG: g.writeNumber(longs[i]); break;
+                default:   g.writeNumber(doubles[i]);
+            }
+        }
+        typeSer.writeTypeSuffix(g, type);
+    }
+
+    /*
+     * ArrayNode narrows the generic JsonNode::deepCopy() to ArrayNode, there is no closer type,
+     * javac reports the unchecked override on the class only.
+     */
+    @Override
+    public ArrayNode deepCopy() {
+        if (kind == INFLATED) return super.deepCopy();
+        NumericArrayNode _r = new NumericArrayNode(_nodeFactory, kind, narrow);
+        if (kind == INT) _r.addAll(ints, 0, size);
+        else if (kind == LONG) _r.addAll(longs, 0, size);
+        else _r.addAll(doubles, 0, size);
+        return _r;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if (!(o instanceof ArrayNode) || ((ArrayNode) o).size() != size()) return false;
+        if (kind == INFLATED && !(o instanceof NumericArrayNode)) return super.equals(o);
+        ArrayNode other = (ArrayNode) o;
+        for (int i = 0; i < size(); i++) {
+            if (!get(i).equals(other.get(i))) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int _r = 1;
+        for (int i = 0; i < size(); i++) _r = 31 * _r + get(i).hashCode();
+        return _r;
+    }
+
+    @Override
+    public boolean equals(Comparator<JsonNode> comparator, JsonNode o) {
+        if (kind == INFLATED && !(o instanceof NumericArrayNode)) return super.equals(comparator, o);
+        if (!(o instanceof ArrayNode) || o.size() != size()) return false;
+        for (int i = 0; i < size(); i++) {
+            if (!get(i).equals(comparator, o.get(i))) return false;
+        }
+        return true;
+    }
+
+    @Override
+    protected JsonNode _at(JsonPointer ptr) { return get(ptr.getMatchingIndex()); }
+
+    /*
+     * Numbers only hold no field, an inflated array may hold objects.
+     */
+
+    @Override
+    public JsonNode findValue(String fieldName) { return kind == INFLATED ? super.findValue(fieldName) : null; }
+
+    @Override
+    public List<JsonNode> findValues(String fieldName, List<JsonNode> foundSoFar) {
+        return kind == INFLATED ? super.findValues(fieldName, foundSoFar) : foundSoFar;
+    }
+
+    @Override
+    public List<String> findValuesAsText(String fieldName, List<String> foundSoFar) {
+        return kind == INFLATED ? super.findValuesAsText(fieldName, foundSoFar) : foundSoFar;
+    }
+
+    @Override
+    public ObjectNode findParent(String fieldName) { return kind == INFLATED ? super.findParent(fieldName) : null; }
+
+    @Override
+    public List<JsonNode> findParents(String fieldName, List<JsonNode> foundSoFar) {
+        return kind == INFLATED ? super.findParents(fieldName, foundSoFar) : foundSoFar;
+    }
+
+    /*
+     * ArrayNode, writing.
+     */
+
+    @Override
+    protected ArrayNode _add(JsonNode node) {
+        if (kind == INT && node.isInt()) {
+            ensure(size + 1);
+            ints[size++] = node.intValue();
+            return this;
+        }
+        if ((kind == INT || kind == LONG) && (node.isInt() || node.isLong())) {
+            if (kind == INT) widen();
+            ensure(size + 1);
+            longs[size++] = node.longValue();
+            return this;
+        }
+        if (kind == DOUBLE && node.isDouble()) {
+            ensure(size + 1);
+            doubles[size++] = node.doubleValue();
+            return this;
+        }
+        inflate();
+        return super._add(node);
+    }
+
+    @Override
+    protected ArrayNode _insert(int index, JsonNode node) { inflate(); return super._insert(index, node); }
+
+    @Override
+    public JsonNode set(int index, JsonNode value) { inflate(); return super.set(index, value); }
+
+    @Override
+    public ArrayNode addAll(ArrayNode other) {
+        for (int i = 0; i < other.size(); i++) add(other.get(i));
+        return this;
+    }
+
+    @Override
+    public ArrayNode addAll(Collection<? extends JsonNode> nodes) {
+        for (JsonNode node : nodes) add(node);
+        return this;
+    }
+
+    @Override
+    public JsonNode remove(int index) { inflate(); return super.remove(index); }
+
+    @Override
+    public ArrayNode removeAll() {
+        if (kind == INFLATED) return super.removeAll();
+        size = 0;
+        return this;
+    }
+
+    /**
+     * Inner using!
+     */
+    private JsonNode element(int index) {
+        switch (kind) {
+            case INT:  return _nodeFactory.numberNode(ints[index]);
+            case LONG: return narrow && longs[index] == (int) longs[index] ? _nodeFactory.numberNode((int) longs[index]) : _nodeFactory.numberNode(longs[index]);
+            case DOUBLE: return _nodeFactory.numberNode(doubles[index]);
+            default:   return super.get(index);
+        }
+    }
+
+    private void ensure(int capacity) {
+        int length = kind == INT ? ints.length : kind == LONG ? longs.length : doubles.length;
+        if (capacity <= length) return;
+        int grown = Math.max(capacity, length + (length >> 1) + 1);
+        if (kind == INT) ints = Arrays.copyOf(ints, grown);
+        else if (kind == LONG) longs = Arrays.copyOf(longs, grown);
+        else doubles = Arrays.copyOf(doubles, grown);
+    }
+
+    private void widen() {
+        longs = new long[Math.max(8, ints.length)];
+        for (int i = 0; i < size; i++) longs[i] = ints[i];
+        ints = null;
+        kind = LONG;
+    }
+
+    private void inflate() {
+        if (kind == INFLATED) return;
+        List<JsonNode> nodes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) nodes.add(element(i));
+        kind = INFLATED;
+        ints = null;
+        longs = null;
+        doubles = null;
+        size = 0;
+        for (JsonNode node : nodes) super._add(node);
+    }
+
+    /**
+     * Tree reader of EasyJsonConfig.Builder::compactNumericArrays()!
+     * Same trees as Jackson, except arrays of only ints, only longs or only doubles
+     * are read into a NumericArrayNode. Anything else falls back to a plain ArrayNode.
+     */
+    static class Deserializer extends StdDeserializer<JsonNode> {
+        private static final long serialVersionUID = 1L;
+
+        Deserializer() { super(JsonNode.class); }
+
+        @Override
+        public JsonNode deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            return read(p, ctxt, ctxt.getNodeFactory());
+        }
+
+        @Override
+        public JsonNode getNullValue(DeserializationContext ctxt) { return ctxt.getNodeFactory().nullNode(); }
+
+        private JsonNode read(JsonParser p, DeserializationContext ctxt, JsonNodeFactory f) throws IOException {
+            switch (p.currentTokenId()) {
+                case JsonTokenId.ID_START_OBJECT:
+                    p.nextToken();
+                    return object(p, ctxt, f);
+                case JsonTokenId.ID_FIELD_NAME:
+                case JsonTokenId.ID_END_OBJECT:
+                    return object(p, ctxt, f);
+                case JsonTokenId.ID_START_ARRAY:
+                    return array(p, ctxt, f);
+                case JsonTokenId.ID_STRING:
+                    return f.textNode(p.getText());
+                case JsonTokenId.ID_NUMBER_INT:
+                    if (ctxt.isEnabled(DeserializationFeature.USE_BIG_INTEGER_FOR_INTS)) return f.numberNode(p.getBigIntegerValue());
+                    JsonParser.NumberType type = p.getNumberType();
+                    if (type == JsonParser.NumberType.INT && !ctxt.isEnabled(DeserializationFeature.USE_LONG_FOR_INTS))
+                        return f.numberNode(p.getIntValue());
+                    if (type == JsonParser.NumberType.BIG_INTEGER) return f.numberNode(p.getBigIntegerValue());
+                    return f.numberNode(p.getLongValue());
+                case JsonTokenId.ID_NUMBER_FLOAT:
+                    if (p.getNumberType() == JsonParser.NumberType.BIG_DECIMAL) return f.numberNode(p.getDecimalValue());
+                    if (ctxt.isEnabled(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS) && !p.isNaN())
+                        return f.numberNode(p.getDecimalValue());
+                    if (p.getNumberType() == JsonParser.NumberType.FLOAT) return f.numberNode(p.getFloatValue());
+                    return f.numberNode(p.getDoubleValue());
+                case JsonTokenId.ID_TRUE:
+                    return f.booleanNode(true);
+                case JsonTokenId.ID_FALSE:
+                    return f.booleanNode(false);
+                case JsonTokenId.ID_NULL:
+                    return f.nullNode();
+                case JsonTokenId.ID_EMBEDDED_OBJECT:
+                    return f.pojoNode(p.getEmbeddedObject());
+                default:
+                    return (JsonNode) ctxt.handleUnexpectedToken(JsonNode.class, p);
+            }
+        }
+
+        /**
+         * The fields from the current one to the end of the object.
+         */
+        private JsonNode object(JsonParser p, DeserializationContext ctxt, JsonNodeFactory f) throws IOException {
+            ObjectNode _r = f.objectNode();
+            for (; p.currentToken() == JsonToken.FIELD_NAME; p.nextToken()) {
+                String name = p.getCurrentName();
+                p.nextToken();
+                _r.replace(name, read(p, ctxt, f));
+            }
+            return _r;
+        }
+
+        private JsonNode array(JsonParser p, DeserializationContext ctxt, JsonNodeFactory f) throws IOException {
+            JsonToken token = p.nextToken();
+            ArrayNode _r = null;
+            boolean longs = ctxt.isEnabled(DeserializationFeature.USE_LONG_FOR_INTS);
+            int kind = compact(token, p, ctxt.isEnabled(DeserializationFeature.USE_BIG_INTEGER_FOR_INTS),
+                    longs, ctxt.isEnabled(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS));
+            if (kind != INFLATED) {
+                NumericArrayNode numbers = new NumericArrayNode(f, kind, !longs);
+                while (token != JsonToken.END_ARRAY && numbers.append(p)) token = p.nextToken();
+                if (token == JsonToken.END_ARRAY) return numbers;
+                /* Not homogeneous, keep what was read in a plain array. */
+                _r = numbers.plain();
+            }
+            if (_r == null) _r = f.arrayNode();
+            for (; token != JsonToken.END_ARRAY; token = p.nextToken()) {
+                if (token == null) return (JsonNode) ctxt.handleUnexpectedToken(JsonNode.class, p);
+                _r.add(read(p, ctxt, f));
+            }
+            return _r;
+        }
+
+    }
+
+    /**
+     * Parse support! The kind of compact array starting by the token, INFLATED if not allowed.
+     * The flags are the DeserializationFeature USE_BIG_INTEGER_FOR_INTS, USE_LONG_FOR_INTS, USE_BIG_DECIMAL_FOR_FLOATS.
+     */
+    static int compact(JsonToken token, JsonParser p, boolean bigIntegers, boolean longs, boolean bigDecimals) throws IOException {
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            if (bigIntegers) return INFLATED;
+            JsonParser.NumberType type = p.getNumberType();
+            if (type == JsonParser.NumberType.INT && !longs) return INT;
+            return type == JsonParser.NumberType.BIG_INTEGER ? INFLATED : LONG;
+        }
+        if (token == JsonToken.VALUE_NUMBER_FLOAT && !bigDecimals)
+            return p.getNumberType() == JsonParser.NumberType.DOUBLE ? DOUBLE : INFLATED;
+        return INFLATED;
+    }
+}
@@ -0,0 +1,284 @@
+package com.jpro.easyjson;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of parse results, for payloads parsed again and again (configs, feature flags)!
+ * Use cache.parse(text) where you would call Json.parse(text), a repeated payload is parsed once.
+ *
+ * Usage:
+ *   ParseCache cache = ParseCache.builder()
+ *           .maximumSize(1024)
+ *           .maximumWeight(16 << 20)
+ *           .build();
+ *   PersistentJson flags = cache.parse(text);
+ *
+ * Results are PersistentJson: the tree is shared by every caller with the same payload,
+ * put()/update() give a new version and never change the cached one. Children handed out
+ * by get(), getAs(), value() or forEachField() are read-only versions too; only the raw nodes
+ * of getRoot() could be written, don't.
+ * Entries are found by a 64-bit hash of the content and confirmed by comparing the content,
+ * so a hash collision is a miss, never a wrong document.
+ *
+ * The weight of an entry is the length of its input (chars or bytes). Eviction is least recently used,
+ * per segment: the cache is split by hash into segments locked independently, so threads rarely
+ * wait on each other, and each segment keeps its share of maximumSize and maximumWeight.
+ * An input heavier than the share of a segment is parsed but not kept.
+ * Call clear() after Json::configure(), cached trees were parsed with the old config.
+ */
+public final class ParseCache {
+    private final Segment[] segments;
+    private final long maximumSize;
+    private final long maximumWeight;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private ParseCache(Builder builder) {
+        maximumSize = builder.maximumSize;
+        maximumWeight = builder.maximumWeight;
+        int n = Integer.highestOneBit((int) Math.max(1, Math.min(builder.segments, maximumSize)));
+        segments = new Segment[n];
+        for (int i = 0; i < n; i++) segments[i] = new Segment(Math.max(1, maximumSize / n), Math.max(1, maximumWeight / n));
+    }
+
+    public static Builder builder() { return new Builder(); }
+
+    /**
+     * Json.parse(String), through the cache!
+     */
+    public PersistentJson parse(String text) {
+        Key key = new Key(text, hash(text));
+        PersistentJson _r = segment(key.hash).get(key);
+        if (_r != null) return hit(_r);
+        misses.increment();
+        _r = new PersistentJson(Json.parse(text).root);
+        return segment(key.hash).put(key, _r, text.length());
+    }
+
+    /**
+     * Json.parse(byte[], int, int), through the cache, the bytes are copied when kept!
+     */
+    public PersistentJson parse(byte[] json, int offset, int len) {
+        Key key = new Key(json, offset, len, hash(json, offset, len));
+        PersistentJson _r = segment(key.hash).get(key);
+        if (_r != null) return hit(_r);
+        misses.increment();
+        _r = new PersistentJson(Json.parse(json, offset, len).root);
+        byte[] copy = new byte[len];
+        System.arraycopy(json, offset, copy, 0, len);
+        return segment(key.hash).put(new Key(copy, 0, len, key.hash), _r, len);
+    }
+
+    public long hits() { return hits.sum(); }
+
+    public long misses() { return misses.sum(); }
+
+    public long evictions() { return evictions.sum(); }
+
+    /**
+     * Hits over lookups, 0 before the first lookup!
+     */
+    public double hitRatio() {
+        long h = hits(), total = h + misses();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    public long size() {
+        long _r = 0;
+        for (Segment segment : segments) _r += segment.size();
+        return _r;
+    }
+
+    public long weight() {
+        long _r = 0;
+        for (Segment segment : segments) _r += segment.weight();
+        return _r;
+    }
+
+    public void clear() { for (Segment segment : segments) segment.clear(); }
+
+    @Override
+    public String toString() {
+        return "ParseCache[size=" + size() + "/" + maximumSize + ", weight=" + weight() + "/" + maximumWeight
+                + ", hits=" + hits() + ", misses=" + misses() + ", evictions=" + evictions() + "]";
+    }
+
+    /**
+     * Inner using!
+     */
+    private PersistentJson hit(PersistentJson json) {
+        hits.increment();
+        return json;
+    }
+
+    private Segment segment(long hash) { return segments[(int) (hash >>> 32) & (segments.length - 1)]; }
+
+    /*
+     * FNV style over four independent lanes, so the multiplies don't wait on each other.
+     */
+    private static final long SEED = 0x9E3779B97F4A7C15L, PRIME = 0x100000001B3L;
+
+    private static long hash(String s) {
+        int n = s.length(), i = 0;
+        long h0 = SEED, h1 = SEED + 1, h2 = SEED + 2, h3 = SEED + 3;
+        for (; i + 3 < n; i += 4) {
+            h0 = (h0 ^ s.charAt(i)) * PRIME;
+            h1 = (h1 ^ s.charAt(i + 1)) * PRIME;
+            h2 = (h2 ^ s.charAt(i + 2)) * PRIME;
+            h3 = (h3 ^ s.charAt(i + 3)) * PRIME;
+        }
+        for (; i < n; i++) h0 = (h0 ^ s.charAt(i)) * PRIME;
+        return mix(h0 ^ Long.rotateLeft(h1, 16) ^ Long.rotateLeft(h2, 32) ^ Long.rotateLeft(h3, 48) ^ n);
+    }
+
+    private static long hash(byte[] b, int offset, int len) {
+        int end = offset + len, i = offset;
+        long h0 = SEED, h1 = SEED + 1, h2 = SEED + 2, h3 = SEED + 3;
+        for (; i + 3 < end; i += 4) {
+            h0 = (h0 ^ b[i] & 0xFF) * PRIME;
+            h1 = (h1 ^ b[i + 1] & 0xFF) * PRIME;
+            h2 = (h2 ^ b[i + 2] & 0xFF) * PRIME;
+            h3 = (h3 ^ b[i + 3] & 0xFF) * PRIME;
+        }
+        for (; i < end; i++) h0 = (h0 ^ b[i] & 0xFF) * PRIME;
+        return mix(h0 ^ Long.rotateLeft(h1, 16) ^ Long.rotateLeft(h2, 32) ^ Long.rotateLeft(h3, 48) ^ len);
+    }
+
+    private static long mix(long h) {
+        h = (h ^ h >>> 33) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ h >>> 33) * 0xC4CEB9FE1A85EC53L;
+        return h ^ h >>> 33;
+    }
+
+    private class Segment {
+        private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final long maximumSize;
+        private final long maximumWeight;
+        private long weight;
+
+        Segment(long maximumSize, long maximumWeight) {
+            this.maximumSize = maximumSize;
+            this.maximumWeight = maximumWeight;
+        }
+
+        synchronized PersistentJson get(Key key) {
+            Entry _r = entries.get(key);
+            return _r == null ? null : _r.json;
+        }
+
+        synchronized PersistentJson put(Key key, PersistentJson json, int weight) {
+            if (weight > maximumWeight) return json;
+            /* Another thread parsed the same payload meanwhile, keep the first. */
+            Entry present = entries.get(key);
+            if (present != null) return present.json;
+            entries.put(key, new Entry(json, weight));
+            this.weight += weight;
+            Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+            while (entries.size() > maximumSize || this.weight > maximumWeight) {
+                this.weight -= eldest.next().getValue().weight;
+                eldest.remove();
+                evictions.increment();
+            }
+            return json;
+        }
+
+        synchronized int size() { return entries.size(); }
+
+        synchronized long weight() { return weight; }
+
+        synchronized void clear() {
+            entries.clear();
+            weight = 0;
+        }
+    }
+
+    private static class Entry {
+        final PersistentJson json;
+        final int weight;
+
+        Entry(PersistentJson json, int weight) {
+            this.json = json;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * The content, String or a range of byte[], with its hash!
+     */
+    private static class Key {
+        final Object content;
+        final int offset, len;
+        final long hash;
+
+        Key(String text, long hash) {
+            this(text, 0, text.length(), hash);
+        }
+
+        Key(byte[] bytes, int offset, int len, long hash) {
+            this((Object) bytes, offset, len, hash);
+        }
+
+        private Key(Object content, int offset, int len, long hash) {
+            this.content = content;
+            this.offset = offset;
+            this.len = len;
+            this.hash = hash;
+        }
+
+        @Override
+        public int hashCode() { return (int) hash; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            if (hash != other.hash || len != other.len) return false;
+            if (content instanceof String) return content.equals(other.content);
+            if (!(other.content instanceof byte[])) return false;
+            /* ByteBuffer::equals is vectorized on newer JDKs. */
+            return ByteBuffer.wrap((byte[]) content, offset, len).equals(ByteBuffer.wrap((byte[]) other.content, other.offset, len));
+        }
+    }
+
+    public static class Builder {
+        private long maximumSize = 1024;
+        private long maximumWeight = 64L << 20;
+        private int segments = 16;
+
+        private Builder() {}
+
+        /**
+         * Most entries kept, 1024 by default!
+         */
+        public Builder maximumSize(long maximumSize) {
+            if (maximumSize < 1) throw new RuntimeException("Parse cache error! Size : " + maximumSize);
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Most input chars/bytes kept, 64M by default!
+         */
+        public Builder maximumWeight(long maximumWeight) {
+            if (maximumWeight < 1) throw new RuntimeException("Parse cache error! Weight : " + maximumWeight);
+            this.maximumWeight = maximumWeight;
+            return this;
+        }
+
+        /**
+         * Independently locked parts, 16 by default, 1 gives one exact LRU over the whole cache!
+         */
+        public Builder segments(int segments) {
+            if (segments < 1) throw new RuntimeException("Parse cache error! Segments : " + segments);
+            this.segments = segments;
+            return this;
+        }
+
+        public ParseCache build() { return new ParseCache(this); }
+    }
+}
@@ -0,0 +1,137 @@
+package com.jpro.easyjson;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+
+/**
+ * Limits of untrusted input, install them by EasyJsonConfig.Builder::limits()!
+ * They are checked token by token while parsing, a hostile payload is cut at the first
+ * token over a limit, before the rest is read or any tree is built below it.
+ * The failure is a RuntimeException("Parse json error! Offset : n, ...") with the byte offset
+ * (char offset for a String) of the offending token.
+ *
+ *   maxDepth           nested objects and arrays
+ *   maxDocumentBytes   size of the input, chars for a String; known sizes are checked up front,
+ *                      streams are counted while read
+ *   maxStringLength    chars of a string value or a field name
+ *   maxFields          fields of one object
+ *   maxNumberLength    chars of a number, a long digit string is a CPU attack on BigInteger/BigDecimal
+ *   bigNumbers         false rejects integers beyond long
+ *
+ * Applied by Json.parse(String / byte[] / ByteBuffer / InputStream / Path), Json.asMap(String),
+ * Json.parse(.., Class), Json::stream() cursors, JsonAsyncParser, Json.parseAsync(), Json.parseBinary()
+ * and JsonLines (per record, maxDocumentBytes per line).
+ * ParseLimits.none() is the default, nothing is checked and parsing takes the plain path.
+ */
+public final class ParseLimits {
+    private static final ParseLimits NONE = builder().build();
+
+    private static final ParseLimits STANDARD = builder()
+            .maxDepth(1000)
+            .maxDocumentBytes(64L << 20)
+            .maxStringLength(20_000_000)
+            .maxFields(100_000)
+            .maxNumberLength(1000)
+            .build();
+
+    private final int maxDepth;
+    private final long maxDocumentBytes;
+    private final int maxStringLength;
+    private final int maxFields;
+    private final int maxNumberLength;
+    private final boolean bigNumbers;
+    private final boolean unlimited;
+
+    private ParseLimits(Builder builder) {
+        maxDepth = builder.maxDepth;
+        maxDocumentBytes = builder.maxDocumentBytes;
+        maxStringLength = builder.maxStringLength;
+        maxFields = builder.maxFields;
+        maxNumberLength = builder.maxNumberLength;
+        bigNumbers = builder.bigNumbers;
+        unlimited = maxDepth == Integer.MAX_VALUE && maxDocumentBytes == Long.MAX_VALUE && maxStringLength == Integer.MAX_VALUE
+                && maxFields == Integer.MAX_VALUE && maxNumberLength == Integer.MAX_VALUE && bigNumbers;
+    }
+
+    /**
+     * No limit at all, the default!
+     */
+    public static ParseLimits none() { return NONE; }
+
+    /**
+     * Depth 1000, 64 MB documents, 20M char strings, 100k fields per object, 1000 char numbers!
+     */
+    public static ParseLimits standard() { return STANDARD; }
+
+    public static Builder builder() { return new Builder(); }
+
+    public int maxDepth() { return maxDepth; }
+
+    public long maxDocumentBytes() { return maxDocumentBytes; }
+
+    public int maxStringLength() { return maxStringLength; }
+
+    public int maxFields() { return maxFields; }
+
+    public int maxNumberLength() { return maxNumberLength; }
+
+    public boolean bigNumbers() { return bigNumbers; }
+
+    /**
+     * Inner using! Nothing to check, parse the plain way.
+     */
+    boolean unlimited() { return unlimited; }
+
+    /**
+     * Inner using! Reject an input of known size over the limit, before reading it.
+     */
+    void size(long size) throws JsonParseException {
+        if (size > maxDocumentBytes)
+            throw new JsonParseException((JsonParser) null, "Parse limit exceeded, document of " + size + " over the limit of " + maxDocumentBytes,
+                    new JsonLocation(null, maxDocumentBytes, -1, -1));
+    }
+
+    @Override
+    public String toString() {
+        return "ParseLimits[maxDepth=" + maxDepth + ", maxDocumentBytes=" + maxDocumentBytes + ", maxStringLength=" + maxStringLength
+                + ", maxFields=" + maxFields + ", maxNumberLength=" + maxNumberLength + ", bigNumbers=" + bigNumbers + "]";
+    }
+
+    public static class Builder {
+        private int maxDepth = Integer.MAX_VALUE;
+        private long maxDocumentBytes = Long.MAX_VALUE;
+        private int maxStringLength = Integer.MAX_VALUE;
+        private int maxFields = Integer.MAX_VALUE;
+        private int maxNumberLength = Integer.MAX_VALUE;
+        private boolean bigNumbers = true;
+
+        private Builder() {}
+
+        public Builder maxDepth(int maxDepth) { this.maxDepth = positive("maxDepth", maxDepth); return this; }
+
+        public Builder maxDocumentBytes(long maxDocumentBytes) {
+            if (maxDocumentBytes < 1) throw new RuntimeException("Parse limits error! maxDocumentBytes : " + maxDocumentBytes);
+            this.maxDocumentBytes = maxDocumentBytes;
+            return this;
+        }
+
+        public Builder maxStringLength(int maxStringLength) { this.maxStringLength = positive("maxStringLength", maxStringLength); return this; }
+
+        public Builder maxFields(int maxFields) { this.maxFields = positive("maxFields", maxFields); return this; }
+
+        public Builder maxNumberLength(int maxNumberLength) { this.maxNumberLength = positive("maxNumberLength", maxNumberLength); return this; }
+
+        /**
+         * Accept integers beyond long, as BigInteger? True by default!
+         */
+        public Builder bigNumbers(boolean bigNumbers) { this.bigNumbers = bigNumbers; return this; }
+
+        public ParseLimits build() { return new ParseLimits(this); }
+
+        private static int positive(String name, int value) {
+            if (value < 1) throw new RuntimeException("Parse limits error! " + name + " : " + value);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.jpro.easyjson;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Immutable, structurally shared Json, create it by Json::snapshot()!
+ * put(), remove(), merge() and deepMerge() return a new version and never touch this one.
+ * Only the objects on the changed path are copied, every other subtree is shared
+ * between the versions, so a version costs the depth of the change, not the document.
+ *
+ * Values from a mutable Json are copied once when they come in, values from
+ * another PersistentJson are shared. A version is never modified after creation:
+ * share it between threads without defensive copies.
+ * get(), getAs(), value() and forEachField() give read-only versions of the shared
+ * subtrees, a JsonView pointed here refuses put(). getRoot() gives the shared nodes,
+ * read them only. toJson() gives a mutable copy.
+ */
+public final class PersistentJson extends Json {
+    PersistentJson(JsonNode frozen) { super(frozen); }
+
+    /**
+     * The empty version!
+     */
+    public static PersistentJson empty() { return new PersistentJson(factory().objectNode()); }
+
+    /**
+     * Snapshot of the passing Json, copied once, shared if it is already persistent!
+     */
+    public static PersistentJson of(Json json) {
+        if (json instanceof PersistentJson) return (PersistentJson) json;
+        return new PersistentJson(json.root == null ? null : json.root.deepCopy());
+    }
+
+    /**
+     * New version with the field set!
+     */
+    @Override
+    public <E> PersistentJson put(String k, E v) { return put(new String[]{k}, v); }
+
+    /**
+     * New version with the value set at the passing path, missing objects on the way are created!
+     */
+    public <E> PersistentJson put(String[] keys, E v) {
+        return new PersistentJson(put(root, keys, 0, freeze(v)));
+    }
+
+    /**
+     * New version without the value at the passing path, this one if there is none!
+     */
+    public PersistentJson remove(String... keys) {
+        if (node(keys) == null) return this;
+        return new PersistentJson(remove(root, keys, 0));
+    }
+
+    /**
+     * New version with the top level fields of other, other wins!
+     */
+    @Override
+    public PersistentJson merge(Json other) {
+        if (!root.isObject() || !other.root.isObject()) throw new RuntimeException("Json merge error! Not object.");
+        boolean shared = other instanceof PersistentJson;
+        ObjectNode _r = copy(root);
+        Iterator<Map.Entry<String, JsonNode>> fields = other.root.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            _r.set(field.getKey(), shared ? field.getValue() : field.getValue().deepCopy());
+        }
+        return new PersistentJson(_r);
+    }
+
+    /**
+     * Same as PersistentJson::merge(), a version can't be updated in place!
+     */
+    @Override
+    public PersistentJson update(Json other) { return merge(other); }
+
+    /**
+     * New version with other merged in recursively, arrays replaced!
+     */
+    @Override
+    public PersistentJson deepMerge(Json other) { return deepMerge(other, MergePolicy.defaults()); }
+
+    /**
+     * New version with other merged in recursively, see MergePolicy. Unchanged subtrees stay shared!
+     */
+    @Override
+    public PersistentJson deepMerge(Json other, MergePolicy policy) {
+        JsonNode _r = JsonMerge.merge(root, other.root, policy, !(other instanceof PersistentJson));
+        return _r == root ? this : new PersistentJson(_r);
+    }
+
+    /**
+     * The shared subtree, as a version of its own!
+     */
+    @Override
+    public PersistentJson get(String... keys) { return new PersistentJson(node(keys)); }
+
+    /**
+     * Mutable copy of the array!
+     */
+    @Override
+    public Array toArray() {
+        JsonNode copy = root.deepCopy();
+        return new Array(copy);
+    }
+
+    /**
+     * Copy of the numbers, a compact array is shared by the versions!
+     */
+    @Override
+    public NumericArray toNumericArray() { return NumericArray.of(root instanceof NumericArrayNode ? root.deepCopy() : root); }
+
+    /**
+     * Mutable copy of this version!
+     */
+    public Json toJson() {
+        JsonNode copy = root.deepCopy();
+        return copy.isArray() ? new Array(copy) : new Json(copy);
+    }
+
+    /**
+     * Already a snapshot!
+     */
+    @Override
+    public PersistentJson snapshot() { return this; }
+
+    @Override
+    boolean frozen() { return true; }
+
+    /**
+     * Inner using!
+     */
+    private static JsonNodeFactory factory() { return config().nodeFactory(); }
+
+    private static ObjectNode copy(JsonNode object) {
+        ObjectNode _r = factory().objectNode();
+        _r.setAll((ObjectNode) object);
+        return _r;
+    }
+
+    private static JsonNode freeze(Object v) {
+        if (v instanceof PersistentJson) return ((PersistentJson) v).root;
+        JsonNode _r = JsonConverter.node(v, factory());
+        /* Nodes of a mutable Json would be shared with their owner. */
+        if ((v instanceof Json || v instanceof JsonNode) && _r.isContainerNode()) return _r.deepCopy();
+        return _r;
+    }
+
+    private static JsonNode put(JsonNode node, String[] keys, int i, JsonNode value) {
+        ObjectNode _r;
+        if (node == null) _r = factory().objectNode();
+        else if (node.isObject()) _r = copy(node);
+        else throw new RuntimeException("Json access error!");
+        _r.set(config().key(keys[i]), i == keys.length - 1 ? value : put(node == null ? null : node.get(keys[i]), keys, i + 1, value));
+        return _r;
+    }
+
+    private static JsonNode remove(JsonNode node, String[] keys, int i) {
+        ObjectNode _r = copy(node);
+        if (i == keys.length - 1) _r.remove(keys[i]);
+        else _r.set(keys[i], remove(node.get(keys[i]), keys, i + 1));
+        return _r;
+    }
+}
@@ -1,10 +1,28 @@
 package com.jpro.easyjson;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class EasyJson {
     @Test
@@ -47,4 +65,582 @@ public class EasyJson {
         Json others = new Json().put("outer", new Json().put("inner_two", "from others")).put("app", "context");
         System.out.println(origin.merge(others).dumps());
     }
+
+    @Test
+    public void streamJson() {
+        /* Read only the fields you want from a big payload, the others are skipped without building! */
+        byte[] bytes = "{\"data\":[{\"a\":1}],\"meta\":{\"id\":\"jpro\",\"size\":2}}".getBytes(StandardCharsets.UTF_8);
+        try (JsonCursor cursor = Json.stream(bytes)) {
+            Assert.assertTrue(cursor.find("meta", "id"));
+            Assert.assertEquals("jpro", cursor.value());
+        }
+        try (JsonCursor cursor = Json.stream(bytes)) {
+            Assert.assertFalse(cursor.find("meta", "name"));
+        }
+        try (JsonCursor cursor = Json.stream(bytes)) {
+            List<String> fields = new ArrayList<>();
+            cursor.enter();
+            while (cursor.nextField()) {
+                fields.add(cursor.field());
+                if ("meta".equals(cursor.field())) Assert.assertEquals("{\"id\":\"jpro\",\"size\":2}", cursor.read().dumps());
+            }
+            Assert.assertEquals(Arrays.asList("data", "meta"), fields);
+        }
+    }
+
+    @Test
+    public void extractPaths() {
+        /* Compile once, then pull the same few values out of every message! */
+        JsonPath paths = JsonPath.compile("id", "data[0].b", "data[1]", "meta.size");
+        List<Object> values = new ArrayList<>();
+        for (Json value : paths.extract("{\"id\":\"jpro\",\"data\":[{\"a\":1,\"b\":\"easyjson\"}],\"meta\":{\"size\":2}}")) {
+            values.add(value.value());
+        }
+        /* A path that isn't there reads as null! */
+        Assert.assertEquals(Arrays.asList("jpro", "easyjson", null, 2), values);
+    }
+
+    @Test
+    public void parseAndDumpBytes() {
+        /* Network buffers in and out, without decoding to String! */
+        byte[] bytes = "{\"id\":\"jpro\",\"data\":[1,2,3]}".getBytes(StandardCharsets.UTF_8);
+        Json json = Json.parse(ByteBuffer.wrap(bytes));
+        ByteBuffer out = ByteBuffer.allocate(64);
+        json.get("data").toArray().writeTo(out);
+        Assert.assertEquals("[1,2,3]", new String(out.array(), 0, out.position(), StandardCharsets.UTF_8));
+        Assert.assertArrayEquals(bytes, Json.parse(bytes, 0, bytes.length).dumpsBytes());
+        /* Only the slice is parsed! */
+        byte[] padded = ("  " + json.dumps() + "xx").getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals(json.dumps(), Json.parse(padded, 2, bytes.length).dumps());
+    }
+
+    @Test
+    public void parseConcurrently() throws Exception {
+        /* One shared engine, no lock: every thread parses and dumps at its own pace!
+           Documents per millisecond should grow with the thread count, up to the core count. */
+        String text = "{\"id\":\"jpro\",\"data\":[{\"a\":1,\"b\":\"easyjson\"}],\"score\":98.5}";
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= Math.max(4, cores); threads *= 2) {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            List<Future<Boolean>> results = new ArrayList<>();
+            long begin = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                results.add(pool.submit(() -> {
+                    for (int i = 0; i < 20000; i++) {
+                        if (!Json.parse(text).dumps().equals(text)) return false;
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) Assert.assertTrue(result.get());
+            long elapsed = System.nanoTime() - begin;
+            pool.shutdown();
+            System.out.println(threads + " thread(s) : " + (threads * 20000L * 1000000 / elapsed) + " docs/ms");
+        }
+    }
+
+    @Test
+    public void accessWithoutWrappers() {
+        /* Primitive getters and a reusable view, nothing is allocated per access! */
+        Json json = Json.parse("{\"id\":7,\"meta\":{\"name\":\"jpro\",\"ok\":true},\"items\":[{\"price\":1.5},{\"price\":2}]}");
+        Assert.assertEquals(7, json.getInt("id"));
+        Assert.assertEquals("jpro", json.getText("meta", "name"));
+        Assert.assertTrue(json.getBoolean("meta", "ok"));
+        double[] total = {0};
+        json.get("items").toArray().forEach(new JsonView(), item -> total[0] += item.getDouble("price"));
+        Assert.assertEquals(3.5, total[0], 0);
+    }
+
+    public static class User {
+        public String id;
+        public List<Integer> data;
+    }
+
+    @Test
+    public void bindPojo() {
+        /* Your domain objects in and out, no Map in between! */
+        User user = Json.parse("{\"id\":\"jpro\",\"data\":[1,2,3]}", User.class);
+        System.out.println(user.id + " " + user.data);
+        Json json = Json.of(user).put("id", "easyjson");
+        System.out.println(json.dumps());
+        System.out.println(json.as(User.class).id);
+        Assert.assertEquals("easyjson", json.as(User.class).id);
+        Assert.assertEquals(Arrays.asList(1, 2, 3), json.as(User.class).data);
+        /* Failures tell why, and where for text. */
+        try {
+            Json.parse("{\"data\":[\"x\"]}").as(User.class);
+            Assert.fail();
+        } catch (RuntimeException e) {
+            System.out.println(e.getMessage());
+            Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Bind json error! " + User.class.getName() + ", Cannot deserialize"));
+        }
+        try {
+            Json.parse("{\"data\":[\"x\"]}", User.class);
+            Assert.fail();
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Bind json error! " + User.class.getName() + ", Offset : 9, Cannot deserialize"));
+        }
+    }
+
+    @Test
+    public void jsonLines() throws Exception {
+        /* Big NDJSON logs, record by record, by batches, or in parallel! */
+        Path path = Files.createTempFile("easyjson", ".jsonl");
+        try (JsonLines.Writer writer = JsonLines.Writer.open(path)) {
+            for (int i = 0; i < 5; i++) writer.write(new Json("id", i).put("name", "jpro"));
+        }
+        try (JsonLines lines = JsonLines.open(path)) {
+            lines.forEachBatch(2, batch -> System.out.println(batch));
+        }
+        AtomicInteger count = new AtomicInteger();
+        JsonLines.parallel(path, ForkJoinPool.commonPool(), 30, record -> count.incrementAndGet());
+        System.out.println(count.get() + " records");
+        Assert.assertEquals(5, count.get());
+        /* One line per record, even with an indenting config. */
+        Json.configure(EasyJsonConfig.builder().configure(SerializationFeature.INDENT_OUTPUT, true).build());
+        try (JsonLines.Writer writer = JsonLines.Writer.open(path)) {
+            writer.write(Json.parse("{\"id\":1,\"tags\":[\"a\"]}")).write(new Json("id", 2));
+        } finally {
+            Json.configure(EasyJsonConfig.defaults());
+        }
+        Assert.assertEquals(Arrays.asList("{\"id\":1,\"tags\":[\"a\"]}", "{\"id\":2}"), Files.readAllLines(path));
+        Files.delete(path);
+    }
+
+    @Test
+    public void parseFile() throws Exception {
+        /* Huge snapshot files: parse them mapped, or touch only what you need! */
+        Path path = Files.createTempFile("easyjson", ".json");
+        Files.write(path, "{\"id\":\"jpro\",\"data\":[{\"a\":1},{\"a\":2,\"b\":\"easy\\\"json\"}],\"meta\":{\"size\":2}}".getBytes(StandardCharsets.UTF_8));
+        System.out.println(Json.parse(path).dumps());
+        MappedJson lazy = Json.parseLazy(path);
+        System.out.println(lazy.keys() + " " + lazy.get("meta", "size").value() + " " + lazy.has("meta", "none"));
+        for (MappedJson item : lazy.get("data")) System.out.println(item.get("b").value());
+        Assert.assertEquals("easy\"json", lazy.get("data").get(1).get("b").value());
+        /* A bad value read lazily, at its offset in the file. */
+        Files.write(path, "{\"ok\":1,\"bad\":{\"b\":tru}}".getBytes(StandardCharsets.UTF_8));
+        try {
+            Json.parseLazy(path).get("bad").json();
+            Assert.fail();
+        } catch (RuntimeException e) {
+            System.out.println(e.getMessage());
+            Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Parse json error! Offset : 23, Unrecognized token 'tru'"));
+        }
+        Files.delete(path);
+    }
+
+    @Test
+    public void diffJson() {
+        /* What changed between two versions, as a JSON Patch! */
+        Json before = Json.parse("{\"id\":\"jpro\",\"data\":[1,2,3],\"meta\":{\"size\":3,\"a/b\":true}}");
+        Json after = Json.parse("{\"id\":\"jpro\",\"data\":[1,5],\"meta\":{\"size\":2},\"ok\":true}");
+        Assert.assertEquals("[{\"op\":\"replace\",\"path\":\"/data/1\",\"value\":5},{\"op\":\"remove\",\"path\":\"/data/2\"},"
+                + "{\"op\":\"remove\",\"path\":\"/meta/a~1b\"},{\"op\":\"replace\",\"path\":\"/meta/size\",\"value\":2},"
+                + "{\"op\":\"add\",\"path\":\"/ok\",\"value\":true}]", before.diff(after).dumps());
+        Assert.assertEquals("[]", before.diff(Json.parse(before.dumps())).dumps());
+        StringBuilder k = new StringBuilder();
+        Assert.assertTrue(after.equal(Json.parse("{\"meta\":{\"size\":2}}"), k));
+        Assert.assertFalse(before.equal(after, k));
+        Assert.assertTrue(k.toString().contains("Key[data]"));
+        /* Long levels are hashed first, 1 and 1.0 still equal. */
+        Json ints = Json.parse("{\"v\":[1,2,3,4,5,6,7,8,{\"a\":0}]}");
+        Assert.assertTrue(ints.equal(Json.parse("{\"v\":[1.0,2,3,4,5,6,7,8.0,{\"a\":-0.0}]}"), k));
+        Assert.assertFalse(ints.equal(Json.parse("{\"v\":[1,2,3,4,5,6,7,9,{\"a\":0}]}"), k));
+        Assert.assertTrue(k.toString().contains("Key[v]"));
+    }
+
+    @Test
+    public void validateBySchema() {
+        /* Compile the template once, validate every request! */
+        JsonSchema template = JsonSchema.compile(Json.parse("{\"id\":\"\",\"meta\":{\"size\":0,\"ok\":true}}"));
+        String request = "{\"id\":7,\"meta\":{\"size\":2}}";
+        Assert.assertEquals(Arrays.asList("Error Type of id", "No meta.ok"), template.validate(Json.parse(request)));
+        Assert.assertEquals(template.validate(Json.parse(request)), template.validate(request.getBytes(StandardCharsets.UTF_8)));
+        Assert.assertTrue(template.validate(Json.parse("{\"id\":\"jpro\",\"meta\":{\"size\":2,\"ok\":false}}")).isEmpty());
+        JsonSchema schema = JsonSchema.compileSchema(Json.parse(
+                "{\"type\":\"object\",\"required\":[\"id\"],\"additionalProperties\":false,"
+                + "\"properties\":{\"id\":{\"type\":\"integer\"},\"data\":{\"type\":\"array\",\"items\":{\"type\":\"string\"}}}}"));
+        Assert.assertEquals(Arrays.asList("Error Type of data[1]", "Unknown x"), schema.validate(Json.parse("{\"id\":7,\"data\":[\"a\",1],\"x\":null}")));
+        Assert.assertTrue(schema.validate(Json.parse("{\"id\":7,\"data\":[\"a\"]}")).isEmpty());
+    }
+
+    @Test
+    public void numericArray() throws Exception {
+        /* Big arrays of numbers, kept in primitive buffers! */
+        NumericArray samples = Json.array(new double[]{0.5, 1.5}).addAll(new double[]{2.5, 3.5});
+        System.out.println(samples.dumps() + " " + Arrays.toString(samples.toDoubleArray()));
+        Assert.assertEquals("[0.5,1.5,2.5,3.5]", samples.dumps());
+        Assert.assertArrayEquals(new double[]{0.5, 1.5, 2.5, 3.5}, samples.toDoubleArray(), 0);
+        Json.configure(EasyJsonConfig.builder().compactNumericArrays(true).build());
+        try {
+            Json json = Json.parse("{\"ts\":[1,2,30000000000],\"v\":[0.1,0.2],\"mix\":[1,\"a\"]}");
+            System.out.println(json.dumps() + " " + json.get("v").toNumericArray().toDoubleArray().length);
+            System.out.println(Arrays.toString(json.get("ts").toNumericArray().toLongArray()) + " " + json.get("mix").toArray().asList());
+            Assert.assertEquals("{\"ts\":[1,2,30000000000],\"v\":[0.1,0.2],\"mix\":[1,\"a\"]}", json.dumps());
+            Assert.assertArrayEquals(new double[]{0.1, 0.2}, json.get("v").toNumericArray().toDoubleArray(), 0);
+            Assert.assertArrayEquals(new long[]{1, 2, 30000000000L}, json.get("ts").toNumericArray().toLongArray());
+            Assert.assertEquals(Arrays.asList(1, "a"), json.get("mix").toArray().asList());
+            /* Reads leave the layout alone, shared compact arrays stay race free. */
+            JsonNode ts = json.getRoot().get("ts");
+            System.out.println(ts.required(2) + " " + ts.equals((x, y) -> x.equals(y) ? 0 : 1, json.getRoot().get("ts").deepCopy())
+                    + " " + ((NumericArrayNode) ts).kind());
+            Assert.assertEquals(30000000000L, ts.required(2).longValue());
+            Assert.assertTrue(ts.equals((x, y) -> x.equals(y) ? 0 : 1, ts.deepCopy()));
+            Assert.assertEquals(NumericArrayNode.LONG, ((NumericArrayNode) ts).kind());
+            /* Widened to long, the ints still read back as Integer, same as a plain parse. */
+            Json plain = new Json(new ObjectMapper().readTree(json.dumps()));
+            Assert.assertEquals(Arrays.asList(1, 2, 30000000000L), json.get("ts").toArray().asList());
+            Assert.assertEquals(plain.get("ts").toArray().asList(), json.get("ts").toArray().asList());
+            Assert.assertTrue(json.getRoot().equals(plain.getRoot()));
+            Assert.assertTrue(Json.array(new long[]{1}).getRoot().get(0).isLong());
+            /* An inflated array may hold objects, find*() sees them. */
+            ArrayNode inflated = (ArrayNode) Json.array(new int[]{1, 2}).getRoot();
+            inflated.addObject().put("k", 3);
+            Assert.assertEquals(3, inflated.findValue("k").intValue());
+            Assert.assertEquals(1, inflated.findParents("k").size());
+            Assert.assertNull(ts.findValue("k"));
+            /* The snapshot's arrays are copies, writes to them don't reach the snapshot. */
+            PersistentJson frozen = json.snapshot();
+            frozen.get("v").toNumericArray().add(0.3);
+            frozen.get("mix").toArray().add("b");
+            Assert.assertEquals(json.dumps(), frozen.dumps());
+        } finally {
+            Json.configure(EasyJsonConfig.defaults());
+        }
+    }
+
+    @Test
+    public void parseMapInOnePass() {
+        /* Mixed lists, nested lists, arrays and any Number, straight into the tree! */
+        Map<String, Object> meta = new HashMap<>();
+        meta.put("ratio", new java.math.BigDecimal("0.25"));
+        meta.put("tags", new String[]{"a", "b"});
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", "jpro");
+        map.put("mixed", Arrays.asList(1, 2.5, "x", null, Arrays.asList(1L, (short) 2)));
+        map.put("samples", new int[]{1, 2, 3});
+        map.put("meta", meta);
+        Json json = Json.parse(map);
+        Assert.assertEquals("jpro", json.get("id").value());
+        Assert.assertEquals("[1,2.5,\"x\",null,[1,2]]", json.get("mixed").dumps());
+        Assert.assertEquals("[1,2,3]", json.get("samples").dumps());
+        Assert.assertEquals("{\"ratio\":0.25,\"tags\":[\"a\",\"b\"]}", json.get("meta").dumpsCanonical());
+        Assert.assertEquals("[" + json.get("meta").dumps() + ",7.5]", Json.array(Arrays.asList(meta, 7.5f)).dumps());
+    }
+
+    @Test
+    public void persistentJson() {
+        /* Layer overrides without copying the whole config, every version stays valid! */
+        PersistentJson base = Json.parse("{\"app\":{\"name\":\"jpro\",\"port\":80},\"db\":{\"pool\":8}}").snapshot();
+        PersistentJson tenant = base.put(new String[]{"app", "port"}, 8080);
+        PersistentJson merged = tenant.deepMerge(Json.parse("{\"db\":{\"pool\":16},\"debug\":true}"));
+        System.out.println(base.dumps() + " " + tenant.dumps() + " " + merged.remove("app", "name").dumps());
+        System.out.println((base.getRoot().get("db") == tenant.getRoot().get("db")) + " " + (merged.getRoot().get("app") == tenant.getRoot().get("app")));
+        String origin = "{\"app\":{\"name\":\"jpro\",\"port\":80},\"db\":{\"pool\":8}}";
+        Assert.assertEquals(origin, base.dumps());
+        Assert.assertEquals("{\"app\":{\"name\":\"jpro\",\"port\":8080},\"db\":{\"pool\":8}}", tenant.dumps());
+        Assert.assertEquals("{\"app\":{\"port\":8080},\"db\":{\"pool\":16},\"debug\":true}", merged.remove("app", "name").dumps());
+        Assert.assertSame(base.getRoot().get("db"), tenant.getRoot().get("db"));
+        Assert.assertSame(merged.getRoot().get("app"), tenant.getRoot().get("app"));
+        /* Children handed out are read-only too, writing them never reaches base or tenant. */
+        Json app = base.getAs("app");
+        Assert.assertTrue(app instanceof PersistentJson);
+        Assert.assertEquals("{\"name\":\"jpro\",\"port\":99}", app.put("port", 99).dumps());
+        base.forEachField((k, v) -> v.put("x", 1));
+        try {
+            base.forEachField(new JsonView(), (k, v) -> v.put("x", 1));
+            Assert.fail();
+        } catch (RuntimeException e) {
+            System.out.println(e.getMessage());
+            Assert.assertEquals("Json access error! Read-only view.", e.getMessage());
+        }
+        System.out.println(base.dumps() + " " + tenant.dumps());
+        Assert.assertEquals(origin, base.dumps());
+        Assert.assertEquals("{\"name\":\"jpro\",\"port\":80}", app.dumps());
+        /* No state shared with the source or the copies handed out. */
+        Json source = Json.parse("[1,2]");
+        PersistentJson numbers = source.snapshot();
+        source.toArray().add(3);
+        numbers.toArray().add(4);
+        numbers.toJson().toArray().add(5);
+        Assert.assertEquals("[1,2]", numbers.dumps());
+        Assert.assertEquals("[1,2,3]", source.dumps());
+    }
+
+    @Test
+    public void deepMergeJson() {
+        /* inner_one survives, arrays merged by their strategy! */
+        Json origin = Json.parse("{\"outer\":{\"inner_one\":12},\"tags\":[\"a\"],\"users\":[{\"id\":1,\"name\":\"jpro\"}]}");
+        Json others = Json.parse("{\"outer\":{\"inner_two\":\"from others\"},\"tags\":[\"b\"],\"users\":[{\"id\":1,\"age\":7},{\"id\":2}]}");
+        String before = origin.dumps(), other = others.dumps();
+        Json replaced = origin.deepMerge(others);
+        System.out.println(replaced.dumps());
+        Assert.assertEquals("{\"outer\":{\"inner_one\":12,\"inner_two\":\"from others\"},\"tags\":[\"b\"],\"users\":[{\"id\":1,\"age\":7},{\"id\":2}]}", replaced.dumps());
+        MergePolicy policy = MergePolicy.builder()
+                .arrays(MergePolicy.Strategy.CONCAT)
+                .mergeByKey("users", "id")
+                .parallel(ForkJoinPool.commonPool(), 2)
+                .build();
+        Json byPolicy = origin.deepMerge(others, policy);
+        System.out.println(byPolicy.dumps() + " " + origin.dumps());
+        Assert.assertEquals("{\"outer\":{\"inner_one\":12,\"inner_two\":\"from others\"},\"tags\":[\"a\",\"b\"],\"users\":[{\"id\":1,\"name\":\"jpro\",\"age\":7},{\"id\":2}]}", byPolicy.dumps());
+        Assert.assertEquals(before, origin.dumps());
+        Assert.assertEquals(other, others.dumps());
+        /* Compact arrays concatenate like any other. */
+        Json numbers = new Json().put("v", Json.array(new int[]{1, 2, 3}));
+        Json more = Json.parse("{\"v\":[4]}");
+        System.out.println(numbers.deepMerge(more, policy).dumps() + " " + numbers.snapshot().deepMerge(more, policy).dumps());
+        Assert.assertEquals("{\"v\":[1,2,3,4]}", numbers.deepMerge(more, policy).dumps());
+        Assert.assertEquals("{\"v\":[1,2,3,4]}", numbers.snapshot().deepMerge(more, policy).dumps());
+        Assert.assertEquals("{\"v\":[1,2,3]}", numbers.dumps());
+        Assert.assertEquals("{\"v\":[4]}", more.dumps());
+        /* Nothing changed, still a new top level, writes to it don't reach the source. */
+        Json source = Json.parse("{\"x\":1,\"o\":{\"k\":1}}");
+        Json merged = source.deepMerge(Json.parse("{\"x\":1}"));
+        merged.put("y", 2);
+        Assert.assertEquals("{\"x\":1,\"o\":{\"k\":1}}", source.dumps());
+        Assert.assertEquals("{\"x\":1,\"o\":{\"k\":1},\"y\":2}", merged.dumps());
+        Json list = Json.parse("[1,2]");
+        ((Array) list.deepMerge(Json.parse("[1,2]"))).add(3);
+        Assert.assertEquals("[1,2]", list.dumps());
+    }
+
+    @Test
+    public void internKeys() {
+        /* One String per field name across documents, with the hit/miss counts! */
+        Json.configure(EasyJsonConfig.builder().internKeys(256).build());
+        try {
+            Json a = Json.parse("{\"id\":1,\"name\":\"jpro\"}");
+            Json b = new Json(new String("id"), 2).put("name", "easyjson");
+            Assert.assertSame(a.keys().get(0), b.keys().get(0));
+            Assert.assertTrue(Json.config().keys().toString().startsWith("KeyCache[size=2/256,"));
+            StringBuilder fields = new StringBuilder();
+            b.forEachField((k, v) -> fields.append(k).append('=').append(v.dumps()).append(' '));
+            b.forEachField(new JsonView(), (k, v) -> fields.append(k).append(':').append(v.value()).append(' '));
+            Assert.assertEquals("id=2 name=\"easyjson\" id:2 name:easyjson ", fields.toString());
+        } finally {
+            Json.configure(EasyJsonConfig.defaults());
+        }
+    }
+
+    @Test
+    public void dumpModes() {
+        /* Same text as the Jackson tree, plus pretty and canonical! */
+        Json json = Json.parse("{\"b\":[1,2.5,\"x\"],\"a\":{\"d\":null,\"c\":true},\"u\":\"\\u00e9\\n\"}");
+        Assert.assertEquals(json.getRoot().toString(), json.dumps());
+        Assert.assertEquals("{\"a\":{\"c\":true,\"d\":null},\"b\":[1,2.5,\"x\"],\"u\":\"\u00e9\\n\"}", json.dumpsCanonical());
+        Assert.assertEquals(json.dumps(), Json.parse(json.dumpsPretty()).dumps());
+        Assert.assertTrue(json.dumpsPretty().startsWith("{\n  \"b\" : [ 1, 2.5, \"x\" ],\n"));
+        StringBuilder out = new StringBuilder("json = ");
+        json.writeTo(out);
+        Assert.assertEquals("json = " + json.dumps(), out.toString());
+        Assert.assertEquals(json.dumps(), new String(json.dumpsBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void binary() {
+        /* Binary round trip, same text back, smaller with shared keys! */
+        Json json = Json.parse("{\"users\":[{\"id\":1,\"name\":\"jpro\",\"score\":2.5},{\"id\":3000000000,\"name\":\"\\u00e9asy\",\"score\":-1e300}],\"big\":123456789012345678901234567890,\"ok\":true,\"none\":null}");
+        json.put("samples", Json.array(new double[]{0.5, 1.5}));
+        byte[] shared = json.toBinary(), plain = json.toBinary(false);
+        Json back = Json.parseBinary(shared);
+        System.out.println(back.dumps().equals(json.dumps()) + " " + Json.parseBinary(plain).dumps().equals(json.dumps()));
+        System.out.println("text " + json.dumpsBytes().length + " B, binary " + shared.length + " B, no shared keys " + plain.length + " B");
+        Assert.assertEquals(json.dumps(), back.dumps());
+        Assert.assertEquals(json.dumps(), Json.parseBinary(plain).dumps());
+        Assert.assertTrue(shared.length < plain.length);
+        /* A 10 byte varint with bit 63 set is a negative length, rejected for every sized tag. */
+        for (int tag : new int[] {0x09, 0x0A, 0x0B, 0x0C, 0x0D, 0x0E, 0x0F}) {
+            byte[] crafted = {'E', 'J', 1, 0, (byte) tag, -1, -1, -1, -1, -1, -1, -1, -1, -1, 1};
+            try {
+                Json.parseBinary(crafted);
+                Assert.fail("tag " + tag);
+            } catch (RuntimeException e) {
+                Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Parse binary error!"));
+            }
+        }
+    }
+
+    @Test
+    public void parseCache() {
+        /* A repeated payload is parsed once, the cached tree can't be changed! */
+        ParseCache cache = ParseCache.builder().maximumSize(2).segments(1).build();
+        String flags = "{\"dark\":true,\"beta\":[\"a\",\"b\"]}";
+        PersistentJson a = cache.parse(flags);
+        PersistentJson b = cache.parse(new String(flags));
+        Json changed = b.put("dark", false);
+        System.out.println((a == b) + " " + cache.parse(flags).dumps() + " " + changed.dumps());
+        Assert.assertSame(a, b);
+        Assert.assertEquals(flags, cache.parse(flags).dumps());
+        Assert.assertEquals("{\"dark\":false,\"beta\":[\"a\",\"b\"]}", changed.dumps());
+        /* Writes through the children of a hit give new versions, the cached tree stays. */
+        String nested = "{\"meta\":{\"x\":1},\"id\":7}";
+        Json meta = cache.parse(nested).getAs("meta");
+        Assert.assertEquals("{\"x\":666}", meta.put("x", 666).dumps());
+        cache.parse(nested).forEachField((k, v) -> { if (v.has("x")) v.put("evil", true); });
+        System.out.println(cache.parse(nested).dumps());
+        Assert.assertEquals(nested, cache.parse(nested).dumps());
+        Assert.assertEquals("{\"x\":1}", meta.dumps());
+        cache.parse("[1]");
+        cache.parse("[2]");
+        System.out.println(cache + " " + cache.hitRatio());
+    }
+
+    @Test
+    public void metrics() {
+        /* Time, size and shape of every parse, asMap, dump and check! */
+        MetricsRecorder metrics = EasyJsonMetrics.recorder();
+        Json.configure(EasyJsonConfig.builder().metrics(metrics).build());
+        try {
+            for (int i = 0; i < 100; i++) {
+                Json json = Json.parse("{\"id\":" + i + ",\"tags\":[\"a\",\"b\"],\"meta\":{\"size\":2}}");
+                json.dumps();
+                json.asMap();
+                json.check(Json.parse("{\"id\":0}"), new StringBuilder());
+            }
+            /* JsonLines records count, failures too. */
+            try (JsonLines lines = JsonLines.open(new ByteArrayInputStream("{\"a\":1}\n{\"a\":}\n".getBytes(StandardCharsets.UTF_8)))) {
+                lines.forEachRemaining(record -> {});
+                Assert.fail();
+            } catch (RuntimeException e) {
+                System.out.println(e.getMessage());
+            }
+            /* Two parses per round, plus the record read and the failed one. */
+            Assert.assertEquals(202, metrics.nanos(EasyJsonMetrics.Operation.PARSE).count());
+            Assert.assertEquals(1, metrics.failed(EasyJsonMetrics.Operation.PARSE));
+            Assert.assertEquals(100, metrics.nanos(EasyJsonMetrics.Operation.AS_MAP).count());
+            Assert.assertEquals(100, metrics.nanos(EasyJsonMetrics.Operation.DUMP).count());
+            Assert.assertEquals(100, metrics.nanos(EasyJsonMetrics.Operation.CHECK).count());
+            Assert.assertEquals(3, metrics.depth(EasyJsonMetrics.Operation.DUMP).max());
+            Assert.assertEquals(7, metrics.nodes(EasyJsonMetrics.Operation.DUMP).max());
+            Assert.assertTrue(metrics.nanos(EasyJsonMetrics.Operation.PARSE).percentile(0.99) > 0);
+            System.out.println(metrics.dumps());
+            metrics.reset();
+            Assert.assertEquals(0, metrics.nanos(EasyJsonMetrics.Operation.PARSE).count());
+        } finally {
+            Json.configure(EasyJsonConfig.defaults());
+        }
+    }
+
+    @Test
+    public void asyncParse() throws Exception {
+        /* Values come out as the chunks complete them, chunks split anywhere! */
+        byte[] body = "{\"id\":1,\"name\":\"jpro\"}\n[1,2.5,\"x\"]\n42".getBytes(StandardCharsets.UTF_8);
+        JsonAsyncParser parser = new JsonAsyncParser();
+        for (int i = 0; i < body.length; i += 5) {
+            for (Json json : parser.feed(ByteBuffer.wrap(body, i, Math.min(5, body.length - i)))) System.out.println("fed " + json.dumps());
+        }
+        for (Json json : parser.end()) System.out.println("end " + json.dumps());
+        Assert.assertEquals(body.length, parser.offset());
+        byte[] one = "{\"id\":7,\"tags\":[\"a\"]}".getBytes(StandardCharsets.UTF_8);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Assert.assertEquals("{\"id\":7,\"tags\":[\"a\"]}", Json.parseAsync(Channels.newChannel(new ByteArrayInputStream(one)), executor).get().dumps());
+            /* Same trees as Json.parse() under the config, compact arrays included. */
+            Json.configure(EasyJsonConfig.builder().compactNumericArrays(true).build());
+            byte[] numbers = "{\"ts\":[1,2,30000000000],\"v\":[0.5],\"mix\":[1,\"a\",[2]],\"e\":[]}".getBytes(StandardCharsets.UTF_8);
+            Json async = Json.parseAsync(Channels.newChannel(new ByteArrayInputStream(numbers)), executor).get();
+            System.out.println(async.dumps() + " " + async.getRoot().get("ts").getClass().getSimpleName() + " "
+                    + Json.parse(numbers, 0, numbers.length).getRoot().get("ts").getClass().getSimpleName());
+            Assert.assertEquals(Json.parse(numbers, 0, numbers.length).dumps(), async.dumps());
+            Assert.assertTrue(async.getRoot().get("ts") instanceof NumericArrayNode);
+            try {
+                new JsonAsyncParser().feed("{\"a\":tru}".getBytes(StandardCharsets.UTF_8), 0, 9);
+                Assert.fail();
+            } catch (RuntimeException e) {
+                System.out.println(e.getMessage());
+                Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Parse json error! Offset : "));
+            }
+            /* maxDocumentBytes counts per root value, a long stream of small records is fine. */
+            Json.configure(EasyJsonConfig.builder().limits(ParseLimits.builder().maxDocumentBytes(16).build()).build());
+            StringBuilder records = new StringBuilder();
+            for (int i = 0; i < 100; i++) records.append("{\"id\":").append(i).append("}\n");
+            byte[] stream = records.toString().getBytes(StandardCharsets.UTF_8);
+            JsonAsyncParser lines = new JsonAsyncParser();
+            List<Json> got = new ArrayList<>();
+            for (int i = 0; i < stream.length; i += 7) got.addAll(lines.feed(stream, i, Math.min(7, stream.length - i)));
+            got.addAll(lines.end());
+            Assert.assertEquals(100, got.size());
+            Assert.assertEquals("{\"id\":99}", got.get(99).dumps());
+            try {
+                byte[] big = "{\"id\":1}\n{\"name\":\"longer than the limit\"}".getBytes(StandardCharsets.UTF_8);
+                new JsonAsyncParser().feed(big, 0, big.length);
+                Assert.fail();
+            } catch (RuntimeException e) {
+                System.out.println(e.getMessage());
+                Assert.assertTrue(e.getMessage(), e.getMessage().contains("Parse limit exceeded"));
+            }
+        } finally {
+            Json.configure(EasyJsonConfig.defaults());
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void parseLimits() {
+        /* Deep trees convert and check without recursion. */
+        Json tree = new Json().put("a", new Array().add(1).add((Object) null));
+        for (int i = 0; i < 100000; i++) tree = new Json().put("a", tree);
+        Assert.assertEquals(1, tree.asMap().size());
+        Assert.assertTrue(tree.check(tree, new StringBuilder()));
+        StringBuilder deep = new StringBuilder();
+        for (int i = 0; i < 100; i++) deep.append('[');
+        /* Deep binary decodes without recursion too. */
+        byte[] binary = new byte[4 + 2 * 100000 + 1];
+        binary[0] = 'E';
+        binary[1] = 'J';
+        binary[2] = 1;
+        for (int i = 0; i < 100000; i++) {
+            binary[4 + 2 * i] = 0x0B;
+            binary[5 + 2 * i] = 1;
+        }
+        Json nested = Json.parseBinary(binary);
+        Assert.assertTrue(nested.check(nested, new StringBuilder()));
+        Json.configure(EasyJsonConfig.builder().limits(ParseLimits.builder().maxDepth(64).maxStringLength(8).maxFields(2).bigNumbers(false).build()).build());
+        try {
+            Assert.assertEquals("{\"a\":[1,2],\"b\":\"short\"}", Json.parse("{\"a\":[1,2],\"b\":\"short\"}").dumps());
+            for (String bad : new String[] {deep.toString(), "{\"a\":\"longer than eight\"}", "{\"a\":1,\"b\":2,\"c\":3}", "[123456789012345678901234567890]"}) {
+                try {
+                    Json.parse(bad.getBytes(StandardCharsets.UTF_8), 0, bad.length());
+                    Assert.fail(bad);
+                } catch (RuntimeException e) {
+                    System.out.println(e.getMessage());
+                    Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Parse json error! Offset : "));
+                    Assert.assertTrue(e.getMessage(), e.getMessage().contains("Parse limit exceeded"));
+                }
+            }
+            try {
+                Json.parseBinary(binary);
+                Assert.fail();
+            } catch (RuntimeException e) {
+                System.out.println(e.getMessage());
+                Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Parse binary error! Offset : "));
+            }
+            try {
+                Json.asMap("{\"a\":\"longer than eight\"}");
+                Assert.fail();
+            } catch (RuntimeException e) {
+                System.out.println(e.getMessage());
+                Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Parse json error! Offset : 5, "));
+            }
+            try {
+                Json.parse("[1,2,\"x\"", List.class);
+                Assert.fail();
+            } catch (RuntimeException e) {
+                System.out.println(e.getMessage());
+                Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Bind json error! java.util.List, Offset : 8, "));
+            }
+            Json.configure(EasyJsonConfig.builder().limits(ParseLimits.builder().maxDocumentBytes(8).build()).build());
+            try (JsonLines lines = JsonLines.open(new ByteArrayInputStream("[1,2]\n[1,2,3,4,5]\n".getBytes(StandardCharsets.UTF_8)))) {
+                Assert.assertEquals("[1,2]", lines.next().dumps());
+                lines.next();
+                Assert.fail();
+            } catch (RuntimeException e) {
+                System.out.println(e.getMessage());
+                Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Parse json error! Offset : 14, "));
+            }
+        } finally {
+            Json.configure(EasyJsonConfig.defaults());
+        }
+    }
 }